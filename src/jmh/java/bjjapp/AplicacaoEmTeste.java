@@ -0,0 +1,27 @@
+package bjjapp;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Sobe a aplicação com o perfil de teste (H2 em memória, dados iniciais do DataLoader) para os
+ * benchmarks que passam pelo banco ou pelo servidor HTTP.
+ */
+public final class AplicacaoEmTeste {
+
+    private AplicacaoEmTeste() {
+    }
+
+    /**
+     * @param web sobe o servidor HTTP numa porta livre ({@code local.server.port})
+     */
+    public static ConfigurableApplicationContext iniciar(boolean web, String... propriedades) {
+        return new SpringApplicationBuilder(BjjappApplication.class)
+            .profiles("test")
+            .web(web ? WebApplicationType.SERVLET : WebApplicationType.NONE)
+            .properties("server.port=0", "logging.level.root=WARN", "logging.level.org.hibernate.tool.schema=ERROR", "spring.jpa.show-sql=false")
+            .properties(propriedades)
+            .run();
+    }
+}
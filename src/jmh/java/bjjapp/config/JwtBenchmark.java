@@ -0,0 +1,69 @@
+package bjjapp.config;
+
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração e verificação de tokens JWT e o filtro de autenticação de cada requisição.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final FilterChain FIM_DA_CADEIA = (request, response) -> { };
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filtro;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private long sequencia;
+
+    @Setup
+    public void preparar() {
+        jwtUtil = new JwtUtil();
+        filtro = new JwtAuthenticationFilter(jwtUtil);
+        token = jwtUtil.generateToken("aluno.benchmark", "ALUNO");
+        request = new MockHttpServletRequest("GET", "/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void limpar() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("aluno.benchmark", "ALUNO");
+    }
+
+    // Token já verificado: servido pelo cache de claims
+    @Benchmark
+    public Object verifyTokenEmCache() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    // Token novo a cada chamada: assinatura e parse completos. O subject muda a cada invocação,
+    // senão tokens emitidos no mesmo segundo (iat em segundos) seriam iguais e viriam do cache
+    @Benchmark
+    public Object generateEVerifyToken() {
+        return jwtUtil.verifyToken(jwtUtil.generateToken("aluno.benchmark." + sequencia++, "ALUNO"));
+    }
+
+    @Benchmark
+    public MockHttpServletRequest doFilterInternal() throws Exception {
+        filtro.doFilterInternal(request, response, FIM_DA_CADEIA);
+        return request;
+    }
+}
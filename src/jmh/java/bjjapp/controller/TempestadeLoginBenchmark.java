@@ -0,0 +1,101 @@
+package bjjapp.controller;
+
+import bjjapp.AplicacaoEmTeste;
+import bjjapp.config.JwtUtil;
+import bjjapp.service.ChamadaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de {@code GET /chamadas/findAll} pelo servidor HTTP, sozinha e durante uma tempestade de
+ * logins (BCrypt) em paralelo, no H2 do perfil de teste.
+ *
+ * Compare o p0.99 de {@code chamadas} com o de {@code tempestade:chamadasDuranteLogins}: com o
+ * hashing no pool dedicado, os logins além da capacidade recebem 429 e as outras requisições não
+ * disputam a CPU com eles. O cliente roda na mesma máquina, então o p0.99 só fica estável com
+ * núcleos livres além do pool: o padrão (núcleos - 1) deixa um para o servidor, e o cliente precisa
+ * de outro: rode com pelo menos 3 núcleos e {@code -p hashingThreads=N} em núcleos - 2. Com menos,
+ * o pool divide núcleo com as leituras e o p0.99 sobe (1 núcleo: de 110 para 391 ms).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class TempestadeLoginBenchmark {
+
+    private static final int CHAMADAS = 20;
+
+    // bjjapp.hashing.threads: 0 usa núcleos - 1
+    @Param("0")
+    private int hashingThreads;
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient cliente;
+    private HttpRequest listarChamadas;
+    private HttpRequest login;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = AplicacaoEmTeste.iniciar(true, "bjjapp.hashing.threads=" + hashingThreads);
+        ChamadaService chamadaService = contexto.getBean(ChamadaService.class);
+        for (int i = 0; i < CHAMADAS; i++) {
+            Long id = chamadaService.iniciar(1L, 1L).getId();
+            chamadaService.marcarPresencas(id, Set.of(2L, 3L, 4L, 5L, 6L));
+            chamadaService.finalizar(id);
+        }
+
+        String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+        String token = contexto.getBean(JwtUtil.class).generateToken("admin", "ADMIN");
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        listarChamadas = HttpRequest.newBuilder(URI.create(base + "/chamadas/findAll"))
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build();
+        login = HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"admin\"}"))
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        cliente.close();
+        contexto.close();
+    }
+
+    // Referência: só as leituras, sem logins
+    @Benchmark
+    @Threads(4)
+    public int chamadas() throws IOException, InterruptedException {
+        return enviar(listarChamadas);
+    }
+
+    @Benchmark
+    @Group("tempestade")
+    @GroupThreads(4)
+    public int chamadasDuranteLogins() throws IOException, InterruptedException {
+        return enviar(listarChamadas);
+    }
+
+    // 200 ou 429, quando o pool de hashing está cheio
+    @Benchmark
+    @Group("tempestade")
+    @GroupThreads(16)
+    public int logins() throws IOException, InterruptedException {
+        return enviar(login);
+    }
+
+    private int enviar(HttpRequest request) throws IOException, InterruptedException {
+        return cliente.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,82 @@
+package bjjapp.entity;
+
+import bjjapp.enums.Faixa;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regras de graduação do aluno e marcação de presença em chamadas grandes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DominioBenchmark {
+
+    private User aluno;
+    private User alunoComIdadeInformada;
+
+    // Alunos marcados na chamada; o tamanho só vale para marcarPresenca
+    @State(Scope.Benchmark)
+    public static class Presentes {
+
+        @Param({"100", "10000"})
+        private int presentes;
+
+        private List<User> alunos;
+
+        @Setup
+        public void preparar() {
+            alunos = new ArrayList<>(presentes);
+            for (long id = 1; id <= presentes; id++) {
+                alunos.add(User.builder().id(id).nome("Aluno " + id).build());
+            }
+        }
+    }
+
+    @Setup
+    public void preparar() {
+        aluno = User.builder()
+            .id(1L)
+            .nome("Aluno Benchmark")
+            .faixa(Faixa.AZUL)
+            .grau(2)
+            .dataNascimento(LocalDate.of(1995, 6, 15))
+            .aulasDesdeUltimaGraduacao(35)
+            .build();
+        alunoComIdadeInformada = User.builder().id(2L).nome("Aluno Idade").idade(30).build();
+    }
+
+    @Benchmark
+    public boolean isAptoParaGraduacao() {
+        return aluno.isAptoParaGraduacao();
+    }
+
+    // Idade calculada a partir da data de nascimento
+    @Benchmark
+    public Integer getIdadeCalculada() {
+        return aluno.getIdade();
+    }
+
+    @Benchmark
+    public Integer getIdadeInformada() {
+        return alunoComIdadeInformada.getIdade();
+    }
+
+    // Tempo para marcar todos os alunos numa chamada nova
+    @Benchmark
+    public int marcarPresenca(Presentes presentes) {
+        Chamada chamada = Chamada.builder().id(1L).build();
+        chamada.iniciar();
+        for (User presente : presentes.alunos) {
+            chamada.marcarPresenca(presente);
+        }
+        return chamada.getTotalPresentes();
+    }
+}
@@ -0,0 +1,96 @@
+package bjjapp.entity;
+
+import bjjapp.enums.DiaSemana;
+import bjjapp.enums.Faixa;
+import bjjapp.enums.Modalidade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON dos grafos de User e Chamada como são devolvidos pela API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @Param({"10", "100"})
+    private int presentes;
+
+    private ObjectMapper objectMapper;
+    private User aluno;
+    private Chamada chamada;
+
+    @Setup
+    public void preparar() {
+        objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Turma manha = turma(1L, "Turma Gi Manhã", Modalidade.GI, LocalTime.of(7, 0));
+        Turma noite = turma(2L, "Turma No-Gi", Modalidade.NO_GI, LocalTime.of(20, 0));
+        aluno = aluno(1L);
+        aluno.setTurmas(new HashSet<>(Set.of(manha, noite)));
+
+        Set<User> alunosPresentes = new HashSet<>();
+        for (long id = 1; id <= presentes; id++) {
+            User presente = aluno(id);
+            presente.setTurmas(new HashSet<>(Set.of(manha)));
+            alunosPresentes.add(presente);
+        }
+        chamada = Chamada.builder()
+            .id(1L)
+            .turma(manha)
+            .professor(Professor.builder().id(1L).nome("Professor Benchmark").faixa(Faixa.PRETA).build())
+            .dataHoraInicio(LocalDateTime.of(2026, 10, 1, 7, 0))
+            .dataHoraFim(LocalDateTime.of(2026, 10, 1, 8, 30))
+            .finalizada(true)
+            .alunosPresentes(alunosPresentes)
+            .build();
+    }
+
+    private static Turma turma(Long id, String nome, Modalidade modalidade, LocalTime horario) {
+        return Turma.builder()
+            .id(id)
+            .nome(nome)
+            .modalidade(modalidade)
+            .horario(horario)
+            .dias(new HashSet<>(Set.of(DiaSemana.SEGUNDA, DiaSemana.QUARTA, DiaSemana.SEXTA)))
+            .build();
+    }
+
+    private static User aluno(Long id) {
+        return User.builder()
+            .id(id)
+            .nome("Aluno " + id)
+            .faixa(Faixa.AZUL)
+            .grau(2)
+            .dataNascimento(LocalDate.of(1995, 6, 15))
+            .aulasAcumuladas(120)
+            .aulasDesdeUltimaGraduacao(35)
+            .ultimaGraduacao(LocalDate.of(2026, 3, 1))
+            .build();
+    }
+
+    @Benchmark
+    public byte[] serializarUser() throws Exception {
+        return objectMapper.writeValueAsBytes(aluno);
+    }
+
+    @Benchmark
+    public byte[] serializarChamada() throws Exception {
+        return objectMapper.writeValueAsBytes(chamada);
+    }
+}
@@ -0,0 +1,152 @@
+package bjjapp.service;
+
+import bjjapp.AplicacaoEmTeste;
+import bjjapp.entity.User;
+import bjjapp.entity.UserHistorico;
+import bjjapp.enums.TipoAlteracao;
+import jakarta.persistence.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Inserção de 10 mil linhas de histórico numa transação, pelo Hibernate, no H2 do perfil de teste.
+ *
+ * {@code identidade} grava numa cópia de {@link UserHistorico} com o id em
+ * {@code GenerationType.IDENTITY}, como era antes: o Hibernate executa um INSERT por linha no
+ * persist, para ler a chave gerada, e não agrupa em lote. {@code pooledLo} usa o mapeamento atual
+ * (gerador em tabela com pooled-lo e {@code hibernate.jdbc.batch_size=50}). No MySQL a diferença é
+ * maior, porque cada INSERT isolado é uma ida e volta na rede; o H2 em memória não tem rede e só
+ * mostra a diferença na quantidade de comandos, no contador {@code comandos} do resultado (também
+ * em {@code -rf json}). Para medir no MySQL, aponte para um banco descartável (o schema é recriado):
+ * {@code -p url=jdbc:mysql://host/banco?rewriteBatchedStatements=true -p usuario=... -p senha=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HistoricoInsercaoBenchmark {
+
+    private static final int LINHAS = 10_000;
+    private static final Long ALUNO = 2L;
+
+    // Registrada pelo scan de entidades só quando os benchmarks estão no classpath
+    @Entity
+    @Table(name = "user_historico_identidade")
+    public static class HistoricoIdentidade {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "user_id", nullable = false)
+        private User user;
+
+        @Column(nullable = false)
+        private String descricao;
+
+        @Column(nullable = false)
+        private LocalDateTime dataHoraAlteracao;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false)
+        private TipoAlteracao tipoAlteracao;
+
+        protected HistoricoIdentidade() {
+        }
+
+        HistoricoIdentidade(UserHistorico historico) {
+            this.user = historico.getUser();
+            this.descricao = historico.getDescricao();
+            this.dataHoraAlteracao = historico.getDataHoraAlteracao();
+            this.tipoAlteracao = historico.getTipoAlteracao();
+        }
+    }
+
+    // Comandos SQL de cada iteração, somados no resultado do JMH
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contagem {
+
+        public long comandos;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            comandos = 0;
+        }
+    }
+
+    // Vazio usa o H2 em memória do perfil de teste
+    @Param("")
+    private String url;
+
+    @Param("")
+    private String usuario;
+
+    @Param("")
+    private String senha;
+
+    private ConfigurableApplicationContext contexto;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics statistics;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = url.isEmpty()
+            ? AplicacaoEmTeste.iniciar(false)
+            : AplicacaoEmTeste.iniciar(false, "spring.datasource.url=" + url, "spring.datasource.username=" + usuario,
+                "spring.datasource.password=" + senha, "spring.datasource.driver-class-name=");
+        entityManager = contexto.getBean(EntityManager.class);
+        transactionTemplate = contexto.getBean(TransactionTemplate.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        statistics = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TearDown(Level.Iteration)
+    public void limpar() {
+        jdbcTemplate.update("DELETE FROM user_historico");
+        jdbcTemplate.update("DELETE FROM user_historico_identidade");
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public int identidade(Contagem contagem) {
+        return gravar(contagem, historico -> entityManager.persist(new HistoricoIdentidade(historico)));
+    }
+
+    @Benchmark
+    public int pooledLo(Contagem contagem) {
+        return gravar(contagem, entityManager::persist);
+    }
+
+    // Os comandos incluem os do gerador de ids, que no pooled-lo roda numa transação à parte
+    private int gravar(Contagem contagem, Consumer<UserHistorico> persistir) {
+        long antes = statistics.getPrepareStatementCount();
+        int linhas = transactionTemplate.execute(status -> {
+            User aluno = entityManager.getReference(User.class, ALUNO);
+            for (int i = 0; i < LINHAS; i++) {
+                persistir.accept(UserHistorico.presenca(aluno, "Gi"));
+            }
+            entityManager.flush();
+            return LINHAS;
+        });
+        contagem.comandos += statistics.getPrepareStatementCount() - antes;
+        return linhas;
+    }
+}
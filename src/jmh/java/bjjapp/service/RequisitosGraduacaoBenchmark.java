@@ -0,0 +1,37 @@
+package bjjapp.service;
+
+import bjjapp.enums.Faixa;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consulta dos requisitos da próxima faixa, feita a cada tela de graduação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequisitosGraduacaoBenchmark {
+
+    @Param({"BRANCA", "CINZA", "ROXA"})
+    private Faixa faixa;
+
+    @Param({"10", "30"})
+    private int idade;
+
+    private RequisitosGraduacaoService service;
+
+    @Setup
+    public void preparar() {
+        service = new RequisitosGraduacaoService();
+    }
+
+    @Benchmark
+    public List<String> getRequisitosParaProximaFaixa() {
+        return service.getRequisitosParaProximaFaixa(faixa, idade);
+    }
+}
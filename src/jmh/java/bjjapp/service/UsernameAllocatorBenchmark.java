@@ -0,0 +1,121 @@
+package bjjapp.service;
+
+import bjjapp.AplicacaoEmTeste;
+import bjjapp.entity.User;
+import bjjapp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cadastro de 10 mil alunos com poucos nomes diferentes (10 nomes x 10 sobrenomes), cada um na
+ * sua transação, no H2 do perfil de teste.
+ *
+ * {@code existsByUsernameEmLoop} é o gerador anterior: uma consulta por sufixo já usado, até achar
+ * um livre. {@code alocador} usa o {@link UsernameAllocator}: uma consulta por prefixo na primeira
+ * vez que a base aparece e o contador em memória depois. A quantidade de comandos SQL de cada um sai
+ * no contador {@code comandos} do resultado (também em {@code -rf json}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class UsernameAllocatorBenchmark {
+
+    private static final String[] NOMES = {"João", "Maria", "José", "Ana", "Pedro", "Juliana", "Lucas", "Fernanda",
+        "Carlos", "Mariana"};
+    private static final String[] SOBRENOMES = {"Silva", "Santos", "Oliveira", "Souza", "Lima", "Pereira", "Costa",
+        "Rodrigues", "Almeida", "Nascimento"};
+
+    // Comandos SQL de cada iteração, somados no resultado do JMH
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contagem {
+
+        public long comandos;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            comandos = 0;
+        }
+    }
+
+    @Param("10000")
+    private int usuarios;
+
+    private ConfigurableApplicationContext contexto;
+    private UserRepository userRepository;
+    private UsernameAllocator allocator;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics statistics;
+    private List<String> nomes;
+    private long maiorIdInicial;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = AplicacaoEmTeste.iniciar(false);
+        userRepository = contexto.getBean(UserRepository.class);
+        allocator = contexto.getBean(UsernameAllocator.class);
+        transactionTemplate = contexto.getBean(TransactionTemplate.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        statistics = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        maiorIdInicial = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+
+        nomes = new ArrayList<>(usuarios);
+        for (int i = 0; i < usuarios; i++) {
+            nomes.add(NOMES[i % NOMES.length] + " " + SOBRENOMES[i / NOMES.length % SOBRENOMES.length]);
+        }
+    }
+
+    // Cada iteração começa sem os alunos cadastrados e sem bases no alocador
+    @TearDown(Level.Iteration)
+    public void limpar() {
+        jdbcTemplate.update("DELETE FROM users WHERE id > ?", maiorIdInicial);
+        nomes.stream().distinct().forEach(allocator::invalidar);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public int existsByUsernameEmLoop(Contagem contagem) {
+        return cadastrar(contagem, nome -> {
+            String base = nome.toLowerCase().replace(" ", ".");
+            String username = base;
+            int sufixo = 1;
+            while (userRepository.existsByUsername(username)) {
+                username = base + sufixo++;
+            }
+            return username;
+        });
+    }
+
+    @Benchmark
+    public int alocador(Contagem contagem) {
+        return cadastrar(contagem, allocator::alocar);
+    }
+
+    private int cadastrar(Contagem contagem, Function<String, String> gerarUsername) {
+        long antes = statistics.getPrepareStatementCount();
+        for (String nome : nomes) {
+            transactionTemplate.executeWithoutResult(status ->
+                userRepository.save(User.builder().nome(nome).username(gerarUsername.apply(nome)).build()));
+        }
+        contagem.comandos += statistics.getPrepareStatementCount() - antes;
+        return nomes.size();
+    }
+}
@@ -0,0 +1,60 @@
+package bjjapp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Migra os critérios concluídos da antiga tabela aluno_criterios (uma linha por critério)
+ * para a coluna users.criterios_concluidos (bitmask). Roda uma única vez: depois de migrada,
+ * a tabela antiga é renomeada para aluno_criterios_migrado e mantida como backup.
+ *
+ * Roda quando todos os singletons estão criados (o schema já foi atualizado pelo
+ * EntityManagerFactory) e antes de o servidor web aceitar requisições. Só preenche quem ainda
+ * não tem o bitmask.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CriteriosBitmaskMigration implements SmartInitializingSingleton {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void afterSingletonsInstantiated() {
+        if (!tabelaExiste("aluno_criterios")) {
+            return;
+        }
+        int migrados = jdbcTemplate.update(
+            "UPDATE users SET criterios_concluidos = " +
+            "(SELECT COALESCE(SUM(POWER(2, ac.criterio_index)), 0) FROM aluno_criterios ac WHERE ac.aluno_id = users.id) " +
+            "WHERE criterios_concluidos IS NULL");
+        jdbcTemplate.execute("ALTER TABLE aluno_criterios RENAME TO aluno_criterios_migrado");
+        log.info("Critérios de {} usuários migrados para bitmask (aluno_criterios -> aluno_criterios_migrado)", migrados);
+    }
+
+    private boolean tabelaExiste(String nome) {
+        try (Connection connection = dataSource.getConnection()) {
+            for (String candidato : new String[]{nome, nome.toUpperCase()}) {
+                try (ResultSet tabelas = connection.getMetaData().getTables(connection.getCatalog(), null, candidato, new String[]{"TABLE"})) {
+                    if (tabelas.next()) {
+                        return true;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível verificar a tabela " + nome, e);
+        }
+        return false;
+    }
+}
@@ -1,6 +1,7 @@
 package bjjapp.config;
 
 import bjjapp.entity.Professor;
+import bjjapp.entity.RequisitoGrau;
 import bjjapp.entity.Turma;
 import bjjapp.entity.User;
 import bjjapp.enums.DiaSemana;
@@ -8,6 +9,7 @@ import bjjapp.enums.Faixa;
 import bjjapp.enums.Modalidade;
 import bjjapp.enums.Role;
 import bjjapp.repository.ProfessorRepository;
+import bjjapp.repository.RequisitoGrauRepository;
 import bjjapp.repository.TurmaRepository;
 import bjjapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -32,12 +34,16 @@ public class DataLoader implements CommandLineRunner {
     private final ProfessorRepository professorRepository;
     private final TurmaRepository turmaRepository;
     private final UserRepository userRepository;
+    private final RequisitoGrauRepository requisitoGrauRepository;
     private final PasswordEncoder passwordEncoder;
 
     @Override
     public void run(String... args) {
         log.info("Verificando dados iniciais...");
 
+        // Requisitos de aulas por grau usados nas consultas de elegibilidade
+        requisitoGrauRepository.saveAll(RequisitoGrau.padroes());
+
         // Criar professores se não existirem
         if (professorRepository.count() == 0) {
             log.info("Criando professores de exemplo...");
@@ -189,17 +195,6 @@ public class DataLoader implements CommandLineRunner {
         log.info("Alunos: {}", userRepository.count());
     }
 
-    private String generateUsername(String nome) {
-        String baseUsername = nome.toLowerCase().replace(" ", ".");
-        String username = baseUsername;
-        int counter = 1;
-        while (userRepository.existsByUsername(username)) {
-            username = baseUsername + counter;
-            counter++;
-        }
-        return username;
-    }
-
     private String generatePassword() {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         SecureRandom random = new SecureRandom();
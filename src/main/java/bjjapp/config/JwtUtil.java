@@ -1,10 +1,18 @@
 package bjjapp.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
@@ -12,9 +20,20 @@ public class JwtUtil {
 
     private static final String SECRET_KEY = "mySecretKeyForJwtTokenGenerationThatIsLongEnough123456789"; // Deve ser configurado em properties
     private static final long EXPIRATION_TIME = 86400000; // 24 horas
+    private static final int MAX_TOKENS_EM_CACHE = 10_000;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // Hash SHA-256 do token -> claims já verificados; cada entrada expira junto com o token e,
+    // com o cache cheio, as menos usadas dão lugar às novas
+    private final Cache<String, TokenVerificado> tokensVerificados = Caffeine.newBuilder()
+        .maximumSize(MAX_TOKENS_EM_CACHE)
+        .expireAfter(Expiry.<String, TokenVerificado>creating((chave, verificado) ->
+            Duration.ofMillis(Math.max(0, verificado.expiraEm() - System.currentTimeMillis()))))
+        .build();
+
+    private record TokenVerificado(Claims claims, long expiraEm) {
     }
 
     public String generateToken(String username, String role) {
@@ -23,31 +42,52 @@ public class JwtUtil {
             .claim("role", role)
             .setIssuedAt(new Date())
             .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-            .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+            .signWith(signingKey, SignatureAlgorithm.HS256)
             .compact();
     }
 
+    /**
+     * Verifica assinatura e expiração uma única vez e devolve os claims.
+     * Tokens já verificados são servidos do cache até expirarem.
+     *
+     * @throws JwtException se o token for inválido ou estiver expirado
+     */
+    public Claims verifyToken(String token) {
+        String chave = hash(token);
+        TokenVerificado verificado = tokensVerificados.getIfPresent(chave);
+        if (verificado != null) {
+            return verificado.claims();
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            tokensVerificados.put(chave, new TokenVerificado(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
     public String extractUsername(String token) {
-        return extractClaims(token).getSubject();
+        return verifyToken(token).getSubject();
     }
 
     public String extractRole(String token) {
-        return extractClaims(token).get("role", String.class);
+        return verifyToken(token).get("role", String.class);
     }
 
     public boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+        return verifyToken(token).getExpiration().before(new Date());
     }
 
     public boolean validateToken(String token, String username) {
         return (username.equals(extractUsername(token)) && !isTokenExpired(token));
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-            .setSigningKey(getSigningKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package bjjapp.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -31,8 +32,14 @@ public class SecurityConfig {
             )
                 .authorizeHttpRequests(auth -> auth
 
+                        // Despachos assíncronos (streams SSE) já foram autorizados na requisição original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // PUBLIC
                         .requestMatchers("/auth/login", "/auth/register").permitAll()
+                        .requestMatchers("/auth/hashing/**").hasRole("ADMIN")
+                        .requestMatchers("/cache/**").hasRole("ADMIN")
+                        .requestMatchers("/exportacao/**").hasRole("ADMIN")
 
                         // PUT ESPECÍFICOS (PRIMEIRO!)
                         .requestMatchers(HttpMethod.PUT, "/users/deactivate/**").hasRole("ADMIN")
@@ -46,6 +53,9 @@ public class SecurityConfig {
                         .requestMatchers("/users/graduacao/**").hasAnyRole("ADMIN", "PROFESSOR", "ALUNO")
                         .requestMatchers("/users/historico/**").hasAnyRole("ADMIN", "PROFESSOR", "ALUNO")
                         .requestMatchers("/users/save").hasAnyRole("ADMIN", "PROFESSOR")
+                        .requestMatchers("/users/importar").hasAnyRole("ADMIN", "PROFESSOR")
+                        .requestMatchers("/users/aptos-graduacao").hasAnyRole("ADMIN", "PROFESSOR")
+                        .requestMatchers("/users/estatisticas/**").hasAnyRole("ADMIN", "PROFESSOR")
                         .requestMatchers("/users/update/**").hasAnyRole("ADMIN", "PROFESSOR")
                         .requestMatchers("/users/delete/**").hasAnyRole("ADMIN", "PROFESSOR")
 
@@ -56,10 +66,13 @@ public class SecurityConfig {
                         .requestMatchers("/turmas/**").hasAnyRole("ADMIN", "PROFESSOR")
 
                         // CHAMADAS
+                        .requestMatchers("/chamadas/agregados/**").hasRole("ADMIN")
+                        .requestMatchers("/chamadas/arquivamento/**").hasRole("ADMIN")
                         .requestMatchers("/chamadas/presencas-ausencias/**").hasAnyRole("ADMIN", "PROFESSOR", "ALUNO")
                         .requestMatchers("/chamadas/**").hasAnyRole("ADMIN", "PROFESSOR")
 
                         // OUTROS
+                        .requestMatchers(HttpMethod.POST, "/requisitos-graduacao/recarregar").hasRole("ADMIN")
                         .requestMatchers("/requisitos-graduacao/**").permitAll()
 
                         .anyRequest().authenticated()
@@ -3,11 +3,11 @@ package bjjapp.controller;
 import bjjapp.config.JwtUtil;
 import bjjapp.entity.User;
 import bjjapp.enums.Role;
+import bjjapp.service.PasswordHashingService;
 import bjjapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -20,7 +20,7 @@ import java.util.Optional;
 public class AuthController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> credentials) {
@@ -62,4 +62,9 @@ public class AuthController {
         user.setRole(role);
         return ResponseEntity.ok(user);
     }
+
+    @GetMapping("/hashing/metricas")
+    public ResponseEntity<PasswordHashingService.Metricas> hashingMetricas() {
+        return ResponseEntity.ok(passwordHashingService.getMetricas());
+    }
 }
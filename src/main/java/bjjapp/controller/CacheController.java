@@ -0,0 +1,20 @@
+package bjjapp.controller;
+
+import bjjapp.service.EstatisticasCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:5173", "http://localhost:3000", "https://appbjj.com.br"})
+public class CacheController {
+
+    private final EstatisticasCache estatisticasCache;
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<EstatisticasCache.Metricas> estatisticas() {
+        return ResponseEntity.ok(estatisticasCache.getMetricas());
+    }
+}
@@ -0,0 +1,24 @@
+package bjjapp.controller;
+
+import bjjapp.entity.Professor;
+import bjjapp.entity.Turma;
+import bjjapp.repository.AlunoPresente;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Chamada em andamento servida da sessão em memória; mesmo formato de uma Chamada,
+ * com os presentes resumidos a id, nome, faixa e grau.
+ */
+public record ChamadaAberta(
+    Long id,
+    @JsonIgnoreProperties({"alunos"}) Turma turma,
+    Professor professor,
+    LocalDateTime dataHoraInicio,
+    boolean finalizada,
+    boolean ativo,
+    List<AlunoPresente> alunosPresentes,
+    int totalPresentes
+) {}
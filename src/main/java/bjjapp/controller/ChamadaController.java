@@ -1,15 +1,21 @@
 package bjjapp.controller;
 
 import bjjapp.entity.Chamada;
+import bjjapp.service.AgregadosPresencaService;
+import bjjapp.service.ArquivamentoChamadas;
 import bjjapp.service.ChamadaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @RestController
@@ -19,6 +25,8 @@ import java.util.Set;
 public class ChamadaController {
 
     private final ChamadaService chamadaService;
+    private final AgregadosPresencaService agregadosPresencaService;
+    private final ArquivamentoChamadas arquivamentoChamadas;
 
     public record IniciarChamadaRequest(Long turmaId, Long professorId) {}
     public record MarcarPresencasRequest(Set<Long> alunosIds) {}
@@ -37,13 +45,42 @@ public class ChamadaController {
     }
 
     @GetMapping("/findAll")
-    public ResponseEntity<List<Chamada>> findAll() {
-        return ResponseEntity.ok(chamadaService.findAll());
+    public ResponseEntity<?> findAll(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                Set<String> campos = chamadaService.campos(fields);
+                return ResponseEntity.ok(chamadaService.findAll(campos, after, CursorPage.limite(limit)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(chamadaService.findAll(after, CursorPage.limite(limit)));
     }
 
     @GetMapping("/findById/{id}")
-    public ResponseEntity<?> findById(@PathVariable Long id) {
+    public ResponseEntity<?> findById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            Set<String> campos;
+            try {
+                campos = chamadaService.campos(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            try {
+                return ResponseEntity.ok(chamadaService.findById(id, campos));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+            }
+        }
         try {
+            // Chamada em andamento vem da sessão em memória, com as marcações ainda não gravadas
+            Optional<ChamadaAberta> aberta = chamadaService.findAberta(id);
+            if (aberta.isPresent()) {
+                return ResponseEntity.ok(aberta.get());
+            }
             return ResponseEntity.ok(chamadaService.findById(id));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -51,8 +88,8 @@ public class ChamadaController {
     }
 
     @GetMapping("/abertas")
-    public ResponseEntity<List<Chamada>> findAbertas() {
-        List<Chamada> abertas = chamadaService.findAbertas();
+    public ResponseEntity<List<ChamadaAberta>> findAbertas() {
+        List<ChamadaAberta> abertas = chamadaService.findAbertas();
         if (abertas.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
@@ -60,23 +97,35 @@ public class ChamadaController {
     }
 
     @GetMapping("/turma/{turmaId}")
-    public ResponseEntity<List<Chamada>> findByTurma(@PathVariable Long turmaId) {
-        return ResponseEntity.ok(chamadaService.findByTurmaId(turmaId));
+    public ResponseEntity<?> findByTurma(
+            @PathVariable Long turmaId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                Set<String> campos = chamadaService.campos(fields);
+                return ResponseEntity.ok(chamadaService.findByTurmaId(turmaId, campos, after, CursorPage.limite(limit)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(chamadaService.findByTurmaId(turmaId, after, CursorPage.limite(limit)));
     }
 
     @GetMapping("/aluno/{alunoId}")
     public ResponseEntity<?> findByAluno(
             @PathVariable Long alunoId,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
         try {
             if (startDate != null && endDate != null) {
                 // Parse robusto das datas
                 java.time.LocalDate inicioData = java.time.LocalDate.parse(startDate);
                 java.time.LocalDate fimData = java.time.LocalDate.parse(endDate);
-                java.time.LocalDateTime inicio = inicioData.atStartOfDay();
-                java.time.LocalDateTime fim = fimData.atTime(23, 59, 59);
-                Map<String, Object> resultado = chamadaService.getPresencasEausenciasPorPeriodo(alunoId, inicio, fim);
+                Map<String, Object> resultado = chamadaService.getPresencasEausenciasPorPeriodo(alunoId, inicioData, fimData);
                 return ResponseEntity.ok(Map.of(
                     "presencas", resultado.get("presencas"),
                     "ausencias", resultado.get("ausencias"),
@@ -89,13 +138,13 @@ public class ChamadaController {
                     "dataFim", endDate
                 ));
             } else {
-                List<Chamada> chamadas = chamadaService.findByAlunoId(alunoId);
-                Long totalPresencas = chamadaService.countPresencas(alunoId);
-                return ResponseEntity.ok(Map.of(
-                    "chamadas", chamadas,
-                    "totalPresencas", totalPresencas,
-                    "periodoFiltrado", false
-                ));
+                CursorPage<Chamada> pagina = chamadaService.findByAlunoId(alunoId, after, CursorPage.limite(limit));
+                Map<String, Object> resposta = new java.util.HashMap<>();
+                resposta.put("chamadas", pagina.items());
+                resposta.put("nextCursor", pagina.nextCursor());
+                resposta.put("totalPresencas", chamadaService.countPresencas(alunoId));
+                resposta.put("periodoFiltrado", false);
+                return ResponseEntity.ok(resposta);
             }
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar chamadas: " + e.getMessage());
@@ -113,7 +162,53 @@ public class ChamadaController {
         // Prioriza startDate/endDate, mas aceita inicio/fim
         String dataInicio = startDate != null ? startDate : inicio;
         String dataFim = endDate != null ? endDate : fim;
-        return findByAluno(alunoId, dataInicio, dataFim);
+        return findByAluno(alunoId, dataInicio, dataFim, null, null);
+    }
+
+    // Totais da turma no período lidos dos agregados diários/mensais, sem percorrer as presenças
+    @GetMapping("/resumo/turma/{turmaId}")
+    public ResponseEntity<?> resumoTurma(@PathVariable Long turmaId, @RequestParam String inicio, @RequestParam String fim) {
+        LocalDate dataInicio;
+        LocalDate dataFim;
+        try {
+            dataInicio = LocalDate.parse(inicio);
+            dataFim = LocalDate.parse(fim);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Datas devem estar no formato AAAA-MM-DD");
+        }
+        try {
+            return ResponseEntity.ok(agregadosPresencaService.resumoTurma(turmaId, dataInicio, dataFim));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/agregados/reconstruir")
+    public ResponseEntity<Void> reconstruirAgregados() {
+        agregadosPresencaService.reconstruir();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Move já as chamadas finalizadas antigas para o arquivo morto, sem esperar o agendamento
+    @PostMapping("/arquivamento/executar")
+    public ResponseEntity<?> arquivar() {
+        try {
+            return ResponseEntity.ok(Map.of("arquivadas", arquivamentoChamadas.arquivar()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
+    }
+
+    // Eventos ao vivo da chamada aberta: estado inicial, depois presenças marcadas/removidas e finalização
+    @GetMapping(path = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> stream(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(chamadaService.acompanhar(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
     }
 
     @PostMapping("/{id}/presenca/{alunoId}")
@@ -0,0 +1,18 @@
+package bjjapp.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Linha da exportação de chamadas, com os ids dos alunos presentes
+ */
+public record ChamadaExportada(
+    Long id,
+    Long turmaId,
+    String turma,
+    Long professorId,
+    LocalDateTime dataHoraInicio,
+    LocalDateTime dataHoraFim,
+    Boolean finalizada,
+    List<Long> alunosIds
+) {}
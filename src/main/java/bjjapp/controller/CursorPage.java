@@ -0,0 +1,35 @@
+package bjjapp.controller;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem paginada por cursor (keyset).
+ * nextCursor é o id do último item da página, ou null quando não há mais itens.
+ */
+public record CursorPage<T>(
+    List<T> items,
+    Long nextCursor
+) {
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    public static int limite(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limit, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Monta a página a partir de uma consulta feita com limite + 1:
+     * o item excedente só indica que existe próxima página.
+     */
+    public static <T> CursorPage<T> of(List<T> itens, int limit, Function<T, Long> cursor) {
+        if (itens.size() <= limit) {
+            return new CursorPage<>(itens, null);
+        }
+        List<T> pagina = itens.subList(0, limit);
+        return new CursorPage<>(pagina, cursor.apply(pagina.get(limit - 1)));
+    }
+}
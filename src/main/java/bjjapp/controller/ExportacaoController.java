@@ -0,0 +1,69 @@
+package bjjapp.controller;
+
+import bjjapp.enums.FormatoExportacao;
+import bjjapp.service.ExportacaoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exportação em massa (ADMIN). O corpo é escrito em streaming, fora da thread da requisição,
+ * enquanto as linhas são lidas do banco.
+ */
+@RestController
+@RequestMapping("/exportacao")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:5173", "http://localhost:3000", "https://appbjj.com.br"})
+public class ExportacaoController {
+
+    private final ExportacaoService exportacaoService;
+
+    @FunctionalInterface
+    private interface Exportacao {
+        void exportar(FormatoExportacao formato, OutputStream saida) throws IOException;
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<StreamingResponseBody> exportarUsers(@RequestParam(defaultValue = "csv") String formato) {
+        return exportar("users", formato, exportacaoService::exportarUsers);
+    }
+
+    @GetMapping("/chamadas")
+    public ResponseEntity<StreamingResponseBody> exportarChamadas(@RequestParam(defaultValue = "csv") String formato) {
+        return exportar("chamadas", formato, exportacaoService::exportarChamadas);
+    }
+
+    @GetMapping("/historico")
+    public ResponseEntity<StreamingResponseBody> exportarHistorico(@RequestParam(defaultValue = "csv") String formato) {
+        return exportar("historico", formato, exportacaoService::exportarHistorico);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportar(String nome, String formato, Exportacao exportacao) {
+        FormatoExportacao formatoExportacao;
+        try {
+            formatoExportacao = FormatoExportacao.fromExtensao(formato);
+        } catch (IllegalArgumentException e) {
+            // O tipo de retorno precisa ser StreamingResponseBody para o Spring escrever em streaming
+            byte[] mensagem = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(saida -> saida.write(mensagem));
+        }
+        StreamingResponseBody corpo = saida -> exportacao.exportar(formatoExportacao, saida);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(formatoExportacao.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(nome + "." + formatoExportacao.getExtensao())
+                .build()
+                .toString())
+            .body(corpo);
+    }
+}
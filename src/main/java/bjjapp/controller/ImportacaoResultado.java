@@ -0,0 +1,18 @@
+package bjjapp.controller;
+
+import java.util.List;
+
+/**
+ * Resultado da importação em lote de alunos.
+ * linha é a linha do CSV (contando o cabeçalho) ou a posição no array JSON.
+ */
+public record ImportacaoResultado(
+    int total,
+    int importados,
+    List<Credencial> credenciais,
+    List<Erro> erros
+) {
+    public record Credencial(int linha, Long id, String nome, String username, String password) {}
+
+    public record Erro(int linha, String mensagem) {}
+}
@@ -0,0 +1,41 @@
+package bjjapp.controller;
+
+import bjjapp.repository.EventoHistorico;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página da linha do tempo do histórico, da entrada mais recente para a mais antiga.
+ * nextCursor identifica a última entrada da página ({@code dataHoraAlteracao_id}), ou é null
+ * quando não há mais entradas.
+ */
+public record PaginaHistorico(
+    List<EventoHistorico> items,
+    String nextCursor
+) {
+    public static PaginaHistorico of(List<EventoHistorico> eventos, int limit) {
+        if (eventos.size() <= limit) {
+            return new PaginaHistorico(eventos, null);
+        }
+        EventoHistorico ultimo = eventos.get(limit - 1);
+        return new PaginaHistorico(eventos.subList(0, limit), ultimo.dataHoraAlteracao() + "_" + ultimo.id());
+    }
+
+    /**
+     * Posição de um cursor devolvido em nextCursor.
+     *
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public record Cursor(LocalDateTime dataHoraAlteracao, Long id) {
+
+        public static Cursor parse(String cursor) {
+            int separador = cursor.lastIndexOf('_');
+            try {
+                return new Cursor(LocalDateTime.parse(cursor.substring(0, separador)), Long.parseLong(cursor.substring(separador + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package bjjapp.controller;
+
+import java.util.List;
+
+public record PresencasMarcadasResponse(
+    List<Long> marcados,
+    List<Long> jaPresentes,
+    List<Long> desconhecidos
+) {}
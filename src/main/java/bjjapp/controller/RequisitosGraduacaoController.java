@@ -1,10 +1,11 @@
 package bjjapp.controller;
 
-import bjjapp.enums.Faixa;
+import bjjapp.service.CatalogoRequisitos;
 import bjjapp.service.RequisitosGraduacaoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -23,8 +24,20 @@ public class RequisitosGraduacaoController {
     }
 
     @GetMapping("/todas-faixas")
-    public ResponseEntity<Map<Faixa, List<String>>> getTodosRequisitos() {
-        return ResponseEntity.ok(requisitosGraduacaoService.getTodosRequisitos());
+    public ResponseEntity<byte[]> getTodosRequisitos(WebRequest request) {
+        CatalogoRequisitos catalogo = requisitosGraduacaoService.getCatalogo();
+        return RespostaCondicional.responderJson(request, "requisitos-" + catalogo.getVersao(),
+            catalogo.getJson(), catalogo.getJsonGzip());
+    }
+
+    @PostMapping("/recarregar")
+    public ResponseEntity<?> recarregar() {
+        try {
+            CatalogoRequisitos catalogo = requisitosGraduacaoService.recarregar();
+            return ResponseEntity.ok(Map.of("versao", catalogo.getVersao()));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
     }
 }
 
@@ -0,0 +1,91 @@
+package bjjapp.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * GET condicional: o ETag é calculado antes do corpo e, quando bate com o If-None-Match,
+ * a resposta é 304 sem montar nem serializar o corpo.
+ */
+final class RespostaCondicional {
+
+    // O cliente pode guardar a resposta, mas revalida a cada uso
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
+    private RespostaCondicional() {
+    }
+
+    static <T> ResponseEntity<T> responder(WebRequest request, String etag, Supplier<T> corpo) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDAR).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDAR).body(corpo.get());
+    }
+
+    /**
+     * Resposta JSON já serializada, com variante gzip. Cada codificação tem o próprio ETag, e o
+     * conteúdo é público: caches compartilhados também podem guardá-lo.
+     */
+    static ResponseEntity<byte[]> responderJson(WebRequest request, String etag, byte[] json, byte[] jsonGzip) {
+        boolean gzip = aceitaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etagVariante = gzip ? etag + "-gzip" : etag;
+        if (request.checkNotModified(etagVariante)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etagVariante)
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+            .eTag(etagVariante)
+            .cacheControl(CacheControl.noCache().cachePublic())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(gzip ? jsonGzip : json);
+    }
+
+    /**
+     * Accept-Encoding (RFC 9110): gzip vale se listado com q > 0 ou, não listado, se "*" tiver
+     * q > 0. "gzip;q=0" recusa explicitamente.
+     */
+    static boolean aceitaGzip(String aceita) {
+        if (aceita == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double qualquer = null;
+        for (String item : aceita.split(",")) {
+            String[] partes = item.split(";");
+            String codificacao = partes[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim().toLowerCase();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (codificacao.equals("gzip") || codificacao.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (codificacao.equals("*")) {
+                qualquer = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return qualquer != null && qualquer > 0;
+    }
+}
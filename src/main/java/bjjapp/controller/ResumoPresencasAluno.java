@@ -0,0 +1,20 @@
+package bjjapp.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Totais de presença de um aluno no período, calculados pelos agregados, nas turmas em que ele está
+ */
+public record ResumoPresencasAluno(
+    Long alunoId,
+    LocalDate inicio,
+    LocalDate fim,
+    long totalChamadas,
+    long totalPresencas,
+    long totalAusencias,
+    double percentualPresenca,
+    List<PorTurma> turmas
+) {
+    public record PorTurma(Long turmaId, long chamadas, long presencas) {}
+}
@@ -0,0 +1,15 @@
+package bjjapp.controller;
+
+import java.time.LocalDate;
+
+/**
+ * Totais de uma turma no período, calculados pelos agregados
+ */
+public record ResumoPresencasTurma(
+    Long turmaId,
+    LocalDate inicio,
+    LocalDate fim,
+    long totalChamadas,
+    long totalPresencas,
+    double mediaPresentes
+) {}
@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalTime;
 import java.util.List;
@@ -42,14 +43,31 @@ public class TurmaController {
     }
 
     @GetMapping("/findAll")
-    public ResponseEntity<List<Turma>> findAll() {
-        return ResponseEntity.ok(turmaService.findAll());
+    public ResponseEntity<?> findAll(WebRequest request, @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            Set<String> campos;
+            try {
+                campos = turmaService.campos(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            // Cada combinação de campos é uma representação diferente, com ETag próprio
+            String etag = turmaService.getEtagLista() + "-" + String.join(",", campos);
+            return RespostaCondicional.responder(request, etag, () -> turmaService.findAll(campos));
+        }
+        return RespostaCondicional.responder(request, turmaService.getEtagLista(), turmaService::findAll);
     }
 
     @GetMapping("/findById/{id}")
-    public ResponseEntity<?> findById(@PathVariable Long id) {
+    public ResponseEntity<?> findById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        Set<String> campos;
+        try {
+            campos = fields != null ? turmaService.campos(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         try {
-            return ResponseEntity.ok(turmaService.findById(id));
+            return ResponseEntity.ok(campos != null ? turmaService.findById(id, campos) : turmaService.findById(id));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -61,7 +79,14 @@ public class TurmaController {
     }
 
     @GetMapping("/ativas")
-    public ResponseEntity<List<Turma>> findAtivas() {
+    public ResponseEntity<?> findAtivas(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(turmaService.findAll(turmaService.campos(fields)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         return ResponseEntity.ok(turmaService.findAtivas());
     }
 
@@ -1,22 +1,34 @@
 package bjjapp.controller;
 
+import bjjapp.entity.CriteriosConverter;
 import bjjapp.entity.User;
 import bjjapp.entity.UserHistorico;
 import bjjapp.entity.Turma;
 import bjjapp.entity.UserPlainPassword;
 import bjjapp.enums.Faixa;
 import bjjapp.enums.Role;
+import bjjapp.enums.TipoAlteracao;
+import bjjapp.repository.AptoGraduacao;
+import bjjapp.repository.ContagemFaixa;
+import bjjapp.service.ImportacaoAlunosService;
 import bjjapp.service.UserService;
+import bjjapp.service.UsernameEmUsoException;
 import bjjapp.service.RequisitosGraduacaoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -31,24 +43,85 @@ public class UserController {
 
     private final UserService userService;
     private final RequisitosGraduacaoService requisitosGraduacaoService;
+    private final ImportacaoAlunosService importacaoAlunosService;
 
     public record UserRequest(User user, Set<Long> turmasIds) {}
 
     @PostMapping("/save")
     public ResponseEntity<UserCreationResponse> save(@RequestBody UserRequest request) {
-        UserCreationResponse response = userService.saveWithPlainPassword(request.user(), request.turmasIds());
+        UserCreationResponse response;
+        try {
+            response = userService.saveWithPlainPassword(request.user(), request.turmasIds());
+        } catch (UsernameEmUsoException e) {
+            // A transação anterior foi desfeita; uma nova tentativa aloca outro username
+            response = userService.saveWithPlainPassword(request.user(), request.turmasIds());
+        }
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/importar", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<?> importarCsv(InputStream arquivo) throws IOException {
+        try {
+            return ResponseEntity.ok(importacaoAlunosService.importarCsv(arquivo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importarJson(InputStream arquivo) throws IOException {
+        try {
+            return ResponseEntity.ok(importacaoAlunosService.importarJson(arquivo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/findAll")
-    public ResponseEntity<List<User>> findAll() {
-        return ResponseEntity.ok(userService.findAll());
+    public ResponseEntity<?> findAll(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                Set<String> campos = userService.campos(fields);
+                return ResponseEntity.ok(userService.findAll(campos, after, CursorPage.limite(limit)));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(userService.findAll(after, CursorPage.limite(limit)));
+    }
+
+    @GetMapping("/aptos-graduacao")
+    public ResponseEntity<CursorPage<AptoGraduacao>> findAptosParaGraduacao(
+            @RequestParam(required = false) Faixa faixa,
+            @RequestParam(required = false) Long turmaId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.findAptosParaGraduacao(faixa, turmaId, after, CursorPage.limite(limit)));
+    }
+
+    @GetMapping("/estatisticas/faixas")
+    public ResponseEntity<Map<String, Long>> getEstatisticasFaixas() {
+        return ResponseEntity.ok(userService.getEstatisticasFaixas());
+    }
+
+    @GetMapping("/estatisticas/faixas/detalhado")
+    public ResponseEntity<List<ContagemFaixa>> getEstatisticasFaixasDetalhadas() {
+        return ResponseEntity.ok(userService.getEstatisticasFaixasDetalhadas());
     }
 
     @GetMapping("/findById/{id}")
-    public ResponseEntity<?> findById(@PathVariable Long id) {
+    public ResponseEntity<?> findById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        Set<String> campos;
+        try {
+            campos = fields != null ? userService.campos(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         try {
-            return ResponseEntity.ok(userService.findById(id));
+            return ResponseEntity.ok(campos != null ? userService.findById(id, campos) : userService.findById(id));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -80,18 +153,54 @@ public class UserController {
     }
 
     @GetMapping("/status/{id}")
-    public ResponseEntity<?> getStatus(@PathVariable Long id) {
+    public ResponseEntity<?> getStatus(@PathVariable Long id, WebRequest request) {
         try {
-            return ResponseEntity.ok(userService.getStatus(id));
+            String etag = "status-" + id + "-" + userService.getVersao(id);
+            return RespostaCondicional.responder(request, etag, () -> userService.getStatus(id));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
     @GetMapping("/historico/{id}")
-    public ResponseEntity<?> getHistorico(@PathVariable Long id) {
+    public ResponseEntity<?> getHistorico(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
         try {
-            return ResponseEntity.ok(userService.getHistorico(id));
+            return ResponseEntity.ok(userService.getHistorico(id, after, CursorPage.limite(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    // Linha do tempo paginada por (dataHoraAlteracao, id); o cursor é o nextCursor da página anterior
+    @GetMapping("/historico/{id}/timeline")
+    public ResponseEntity<?> getLinhaDoTempo(
+            @PathVariable Long id,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) String inicio,
+            @RequestParam(required = false) String fim,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        TipoAlteracao tipoAlteracao;
+        LocalDateTime desde;
+        LocalDateTime ate;
+        PaginaHistorico.Cursor cursor;
+        try {
+            tipoAlteracao = tipo != null ? TipoAlteracao.valueOf(tipo.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Tipo de alteração inválido: " + tipo);
+        }
+        try {
+            desde = inicio != null ? LocalDate.parse(inicio).atStartOfDay() : null;
+            ate = fim != null ? LocalDate.parse(fim).atTime(23, 59, 59, 999_999_000) : null;
+            cursor = after != null ? PaginaHistorico.Cursor.parse(after) : null;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        try {
+            return ResponseEntity.ok(userService.getLinhaDoTempo(id, tipoAlteracao, desde, ate, cursor, CursorPage.limite(limit)));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -105,53 +214,60 @@ public class UserController {
     @GetMapping("/graduacao/{id}")
     public ResponseEntity<?> getCriteriosGraduacao(
             @PathVariable Long id,
-            @RequestParam(required = false) String faixa) {
+            @RequestParam(required = false) String faixa,
+            WebRequest request) {
         try {
-            User user = userService.findById(id);
-            // Usar método que retorna requisitos da PRÓXIMA faixa considerando idade
-            List<String> requisitos;
-            Faixa faixaRequisitos;
-            if (faixa != null) {
-                faixaRequisitos = Faixa.valueOf(faixa.toUpperCase());
-                requisitos = requisitosGraduacaoService.getRequisitosPorFaixa(faixaRequisitos);
-            } else {
-                faixaRequisitos = requisitosGraduacaoService.getProximaFaixa(user.getFaixa(), user.getIdade());
-                requisitos = requisitosGraduacaoService.getRequisitosParaProximaFaixa(user.getFaixa(), user.getIdade());
-            }
-            Set<Integer> concluidos = user.getCriteriosConcluidos() != null
-                ? user.getCriteriosConcluidos()
-                : new java.util.HashSet<>();
-            boolean[] criteriosMarcados = new boolean[requisitos.size()];
-            int totalConcluidos = 0;
-            for (int i = 0; i < requisitos.size(); i++) {
-                criteriosMarcados[i] = concluidos.contains(i);
-                if (criteriosMarcados[i]) totalConcluidos++;
-            }
-            boolean prontoParaProximaFaixa = requisitosGraduacaoService.isProntoParaProximaFaixa(
-                user.getFaixa(),
-                user.getGrau(),
-                totalConcluidos,
-                requisitos.size(),
-                user.getIdade()
-            );
-            Integer idadeMinimaProximaFaixa = faixaRequisitos != null
-                ? requisitosGraduacaoService.getIdadeMinima(faixaRequisitos) : null;
-            Map<String, Object> response = new java.util.HashMap<>();
-            response.put("requisitos", requisitos);
-            response.put("criteriosMarcados", criteriosMarcados);
-            response.put("faixaAtual", user.getFaixa().name());
-            response.put("faixaRequisitos", faixaRequisitos != null ? faixaRequisitos.name() : null);
-            response.put("prontoParaProximaFaixa", prontoParaProximaFaixa);
-            response.put("idadeMinimaProximaFaixa", idadeMinimaProximaFaixa);
-            response.put("grauAtual", user.getGrau());
-            response.put("totalCriterios", requisitos.size());
-            response.put("totalConcluidos", totalConcluidos);
-            return ResponseEntity.ok(response);
+            String etag = "graduacao-" + id + "-" + userService.getVersaoEIdade(id) + "-"
+                + (faixa != null ? Faixa.valueOf(faixa.toUpperCase()).name() : "proxima") + "-" + requisitosGraduacaoService.getVersao();
+            return RespostaCondicional.responder(request, etag, () -> criteriosGraduacao(id, faixa));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
 
+    private Map<String, Object> criteriosGraduacao(Long id, String faixa) {
+        User user = userService.findById(id);
+        // Usar método que retorna requisitos da PRÓXIMA faixa considerando idade
+        List<String> requisitos;
+        Faixa faixaRequisitos;
+        if (faixa != null) {
+            faixaRequisitos = Faixa.valueOf(faixa.toUpperCase());
+            requisitos = requisitosGraduacaoService.getRequisitosPorFaixa(faixaRequisitos);
+        } else {
+            faixaRequisitos = requisitosGraduacaoService.getProximaFaixa(user.getFaixa(), user.getIdade());
+            requisitos = requisitosGraduacaoService.getRequisitosParaProximaFaixa(user.getFaixa(), user.getIdade());
+        }
+        Set<Integer> concluidos = user.getCriteriosConcluidos() != null
+            ? user.getCriteriosConcluidos()
+            : new java.util.HashSet<>();
+        boolean[] criteriosMarcados = new boolean[requisitos.size()];
+        int totalConcluidos = 0;
+        for (int i = 0; i < requisitos.size(); i++) {
+            criteriosMarcados[i] = concluidos.contains(i);
+            if (criteriosMarcados[i]) totalConcluidos++;
+        }
+        boolean prontoParaProximaFaixa = requisitosGraduacaoService.isProntoParaProximaFaixa(
+            user.getFaixa(),
+            user.getGrau(),
+            totalConcluidos,
+            requisitos.size(),
+            user.getIdade()
+        );
+        Integer idadeMinimaProximaFaixa = faixaRequisitos != null
+            ? requisitosGraduacaoService.getIdadeMinima(faixaRequisitos) : null;
+        Map<String, Object> response = new java.util.HashMap<>();
+        response.put("requisitos", requisitos);
+        response.put("criteriosMarcados", criteriosMarcados);
+        response.put("faixaAtual", user.getFaixa().name());
+        response.put("faixaRequisitos", faixaRequisitos != null ? faixaRequisitos.name() : null);
+        response.put("prontoParaProximaFaixa", prontoParaProximaFaixa);
+        response.put("idadeMinimaProximaFaixa", idadeMinimaProximaFaixa);
+        response.put("grauAtual", user.getGrau());
+        response.put("totalCriterios", requisitos.size());
+        response.put("totalConcluidos", totalConcluidos);
+        return response;
+    }
+
     @PutMapping("/marcar-criterios/{id}")
     public ResponseEntity<?> marcarCriterios(@PathVariable Long id, @RequestBody boolean[] criteriosMarcados) {
         return atualizarChecklistGraduacao(id, criteriosMarcados);
@@ -160,13 +276,20 @@ public class UserController {
     @PutMapping("/graduacao/{id}")
     public ResponseEntity<?> atualizarChecklistGraduacao(@PathVariable Long id, @RequestBody boolean[] criteriosMarcados) {
         // Converter array de boolean para Set de índices
-        Set<Integer> novosIndices = new java.util.HashSet<>();
+        if (criteriosMarcados.length > CriteriosConverter.MAX_CRITERIOS) {
+            return ResponseEntity.badRequest().body("Máximo de " + CriteriosConverter.MAX_CRITERIOS + " critérios");
+        }
+        Set<Integer> novosIndices = new java.util.TreeSet<>();
         for (int i = 0; i < criteriosMarcados.length; i++) {
             if (criteriosMarcados[i]) {
                 novosIndices.add(i);
             }
         }
-        User user = userService.updateCriterios(id, novosIndices);
+        try {
+            userService.updateCriterios(id, novosIndices);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
         return ResponseEntity.ok(Map.of(
             "mensagem", "Critérios atualizados com sucesso",
             "totalConcluidos", novosIndices.size(),
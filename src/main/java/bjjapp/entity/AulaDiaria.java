@@ -0,0 +1,37 @@
+package bjjapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Agregado: chamadas finalizadas de uma turma em um dia.
+ */
+@Entity
+@Table(name = "aulas_diarias")
+@IdClass(AulaDiaria.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AulaDiaria {
+
+    @Id
+    private Long turmaId;
+
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private Integer aulas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Long turmaId;
+        private LocalDate dia;
+    }
+}
@@ -0,0 +1,36 @@
+package bjjapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Agregado: chamadas finalizadas de uma turma em um mês. {@code mes} é AAAAMM (ex.: 202610).
+ */
+@Entity
+@Table(name = "aulas_mensais")
+@IdClass(AulaMensal.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AulaMensal {
+
+    @Id
+    private Long turmaId;
+
+    @Id
+    private Integer mes;
+
+    @Column(nullable = false)
+    private Integer aulas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Long turmaId;
+        private Integer mes;
+    }
+}
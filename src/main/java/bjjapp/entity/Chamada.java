@@ -1,6 +1,8 @@
 package bjjapp.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -13,6 +15,15 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "chamadas")
+@NamedEntityGraph(
+    name = "Chamada.detalhe",
+    attributeNodes = {
+        @NamedAttributeNode(value = "turma", subgraph = "turma"),
+        @NamedAttributeNode("professor"),
+        @NamedAttributeNode("alunosPresentes")
+    },
+    subgraphs = @NamedSubgraph(name = "turma", attributeNodes = @NamedAttributeNode("dias"))
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,15 +32,15 @@ import java.util.Set;
 public class Chamada {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmTabela("chamadas")
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "turma_id", nullable = false)
     @JsonIgnoreProperties({"alunos"})
     private Turma turma;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "professor_id", nullable = false)
     private Professor professor;
 
@@ -46,7 +57,13 @@ public class Chamada {
     @Builder.Default
     private boolean ativo = true;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Opcional no JSON de entrada: ausente vale 0
+    @Version
+    @Column(nullable = false)
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private long versao;
+
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "chamada_alunos",
         joinColumns = @JoinColumn(name = "chamada_id"),
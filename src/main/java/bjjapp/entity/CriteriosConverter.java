@@ -0,0 +1,45 @@
+package bjjapp.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Converte os índices de critérios concluídos em um bitmask (bit i = critério i concluído).
+ * As listas de requisitos têm no máximo ~11 itens por faixa; um long comporta até 63.
+ */
+@Converter
+public class CriteriosConverter implements AttributeConverter<Set<Integer>, Long> {
+
+    public static final int MAX_CRITERIOS = 63;
+
+    @Override
+    public Long convertToDatabaseColumn(Set<Integer> criterios) {
+        long mask = 0L;
+        if (criterios != null) {
+            for (Integer indice : criterios) {
+                if (indice == null || indice < 0 || indice >= MAX_CRITERIOS) {
+                    throw new IllegalArgumentException("Índice de critério inválido: " + indice);
+                }
+                mask |= 1L << indice;
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public Set<Integer> convertToEntityAttribute(Long mask) {
+        Set<Integer> criterios = new TreeSet<>();
+        if (mask != null) {
+            long restante = mask;
+            while (restante != 0) {
+                int indice = Long.numberOfTrailingZeros(restante);
+                criterios.add(indice);
+                restante &= restante - 1;
+            }
+        }
+        return criterios;
+    }
+}
@@ -0,0 +1,41 @@
+package bjjapp.entity;
+
+import org.hibernate.boot.model.relational.InitCommand;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.TableGenerator;
+
+import java.util.Properties;
+
+/**
+ * Gerador de {@link IdEmTabela}: o TableGenerator do Hibernate sem a linha inicial no schema.
+ *
+ * O Hibernate registra a linha inicial de cada gerador duas vezes, e a segunda falha com chave
+ * duplicada a cada schema novo. As linhas de id_generators vêm só de db/id-generators.sql, que
+ * também as alinha aos ids já existentes; se faltar alguma, o gerador a cria no primeiro uso.
+ */
+public class GeradorIdEmTabela extends TableGenerator {
+
+    static final int BLOCO = 50;
+
+    private final String segmento;
+
+    public GeradorIdEmTabela(IdEmTabela config) {
+        this.segmento = config.value();
+    }
+
+    @Override
+    public void configure(GeneratorCreationContext creationContext, Properties parameters) {
+        parameters.setProperty(TABLE_PARAM, "id_generators");
+        parameters.setProperty(SEGMENT_COLUMN_PARAM, "sequence_name");
+        parameters.setProperty(VALUE_COLUMN_PARAM, "next_val");
+        parameters.setProperty(SEGMENT_VALUE_PARAM, segmento);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(BLOCO));
+        super.configure(creationContext, parameters);
+    }
+
+    @Override
+    protected InitCommand generateInsertInitCommand(SqlStringGenerationContext context) {
+        return new InitCommand();
+    }
+}
@@ -0,0 +1,20 @@
+package bjjapp.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id gerado na tabela id_generators, em blocos de {@value GeradorIdEmTabela#BLOCO} com o
+ * otimizador pooled-lo. O valor é a linha da tabela (coluna sequence_name).
+ */
+@IdGeneratorType(GeradorIdEmTabela.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdEmTabela {
+
+    String value();
+}
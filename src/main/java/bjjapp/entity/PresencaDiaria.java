@@ -0,0 +1,42 @@
+package bjjapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Agregado: presenças de um aluno numa turma em um dia (data de início das chamadas finalizadas).
+ * Mantido por ChamadaService.finalizar; pode ser refeito a partir das chamadas.
+ */
+@Entity
+@Table(name = "presencas_diarias", indexes = @Index(name = "idx_presencas_diarias_turma", columnList = "turma_id, dia"))
+@IdClass(PresencaDiaria.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresencaDiaria {
+
+    @Id
+    private Long alunoId;
+
+    @Id
+    private Long turmaId;
+
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private Integer presencas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Long alunoId;
+        private Long turmaId;
+        private LocalDate dia;
+    }
+}
@@ -0,0 +1,40 @@
+package bjjapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Agregado: presenças de um aluno numa turma em um mês. {@code mes} é AAAAMM (ex.: 202610).
+ */
+@Entity
+@Table(name = "presencas_mensais", indexes = @Index(name = "idx_presencas_mensais_turma", columnList = "turma_id, mes"))
+@IdClass(PresencaMensal.Chave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresencaMensal {
+
+    @Id
+    private Long alunoId;
+
+    @Id
+    private Long turmaId;
+
+    @Id
+    private Integer mes;
+
+    @Column(nullable = false)
+    private Integer presencas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Long alunoId;
+        private Long turmaId;
+        private Integer mes;
+    }
+}
@@ -0,0 +1,45 @@
+package bjjapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aulas necessárias desde a última graduação para receber o próximo grau.
+ * A tabela espelha AULAS_POR_GRAU (sincronizada na inicialização) para que as
+ * consultas de elegibilidade possam fazer join com ela.
+ */
+@Entity
+@Table(name = "requisitos_grau")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequisitoGrau {
+
+    // Grau 4 é o último: a próxima etapa é a troca de faixa, decidida pelo professor
+    public static final Map<Integer, Integer> AULAS_POR_GRAU = Map.of(
+        0, 20,
+        1, 20,
+        2, 30,
+        3, 40
+    );
+
+    @Id
+    private Integer grau;
+
+    @Column(nullable = false)
+    private Integer aulas;
+
+    public static int aulasParaProximoGrau(int grau) {
+        return AULAS_POR_GRAU.getOrDefault(grau, 0);
+    }
+
+    public static List<RequisitoGrau> padroes() {
+        return AULAS_POR_GRAU.entrySet().stream()
+            .map(e -> new RequisitoGrau(e.getKey(), e.getValue()))
+            .toList();
+    }
+}
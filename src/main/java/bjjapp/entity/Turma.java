@@ -3,9 +3,13 @@ package bjjapp.entity;
 import bjjapp.enums.DiaSemana;
 import bjjapp.enums.Modalidade;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalTime;
 import java.util.HashSet;
@@ -18,6 +22,18 @@ import java.util.Set;
 @Table(name = "turmas", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"modalidade", "horario"})
 })
+@NamedEntityGraph(
+    name = "Turma.roster",
+    attributeNodes = {
+        @NamedAttributeNode("dias"),
+        @NamedAttributeNode("alunos")
+    }
+)
+@NamedEntityGraph(
+    name = "Turma.resumo",
+    attributeNodes = @NamedAttributeNode("dias")
+)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Dado de referência: muda raramente, lido em toda chamada
 @Getter
 @Setter
 @NoArgsConstructor
@@ -38,8 +54,9 @@ public class Turma {
     @Column(nullable = false)
     private LocalTime horario;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "turma_dias", joinColumns = @JoinColumn(name = "turma_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Enumerated(EnumType.STRING)
     @Column(name = "dia")
     @Builder.Default
@@ -49,7 +66,7 @@ public class Turma {
     @Builder.Default
     private boolean ativo = true;
 
-    @ManyToMany(mappedBy = "turmas", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "turmas", fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"turmas", "chamadas"})
     @Builder.Default
     private Set<User> alunos = new HashSet<>();
@@ -57,4 +74,10 @@ public class Turma {
     @NotNull(message = "Nome é obrigatório")
     @Column(nullable = false)
     private String nome;
+
+    // Opcional no JSON de entrada: ausente vale 0
+    @Version
+    @Column(nullable = false)
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private long versao;
 }
@@ -3,11 +3,14 @@ package bjjapp.entity;
 import bjjapp.enums.Faixa;
 import bjjapp.enums.Role;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -18,6 +21,12 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "users")
+@DynamicUpdate // Atualiza só as colunas alteradas, sem sobrescrever contadores incrementados no banco
+@NamedEntityGraph(
+    name = "User.detalhe",
+    attributeNodes = @NamedAttributeNode(value = "turmas", subgraph = "turmas"),
+    subgraphs = @NamedSubgraph(name = "turmas", attributeNodes = @NamedAttributeNode("dias"))
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,7 +35,7 @@ import java.util.Set;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmTabela("users")
     private Long id;
 
     @NotBlank(message = "Nome é obrigatório")
@@ -70,7 +79,7 @@ public class User {
     private String dataInicioPratica; // Formato "YYYY-MM"
     private String dataUltimaGraduacao; // Formato "YYYY-MM"
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "aluno_turmas",
         joinColumns = @JoinColumn(name = "aluno_id"),
@@ -90,10 +99,9 @@ public class User {
 
     private LocalDate ultimaGraduacao;
 
-    // Lista de critérios/técnicas concluídos (índices dos requisitos marcados)
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "aluno_criterios", joinColumns = @JoinColumn(name = "aluno_id"))
-    @Column(name = "criterio_index")
+    // Lista de critérios/técnicas concluídos (índices dos requisitos marcados), gravada como bitmask
+    @Convert(converter = CriteriosConverter.class)
+    @Column(name = "criterios_concluidos")
     @Builder.Default
     private Set<Integer> criteriosConcluidos = new HashSet<>();
 
@@ -101,6 +109,13 @@ public class User {
     @Builder.Default
     private boolean ativo = true;
 
+    // Incrementada a cada alteração; base dos ETags e do controle de concorrência otimista.
+    // Opcional no JSON de entrada: ausente vale 0
+    @Version
+    @Column(nullable = false)
+    @JsonSetter(nulls = Nulls.AS_EMPTY)
+    private long versao;
+
     // Métodos de negócio
 
     /**
@@ -108,11 +123,15 @@ public class User {
      * Se idade for null mas dataNascimento existir, calcula a idade.
      */
     public Integer getIdade() {
-        if (this.idade != null) {
-            return this.idade;
+        return calcularIdade(this.idade, this.dataNascimento);
+    }
+
+    public static Integer calcularIdade(Integer idade, LocalDate dataNascimento) {
+        if (idade != null) {
+            return idade;
         }
-        if (this.dataNascimento != null) {
-            return java.time.Period.between(this.dataNascimento, LocalDate.now()).getYears();
+        if (dataNascimento != null) {
+            return java.time.Period.between(dataNascimento, LocalDate.now()).getYears();
         }
         return null;
     }
@@ -144,13 +163,7 @@ public class User {
     }
 
     public int getAulasParaProximoGrau() {
-        return switch (this.grau) {
-            case 0 -> 20;
-            case 1 -> 20;
-            case 2 -> 30;
-            case 3 -> 40;
-            default -> 0;
-        };
+        return RequisitoGrau.aulasParaProximoGrau(this.grau);
     }
 
     public int getAulasRestantes() {
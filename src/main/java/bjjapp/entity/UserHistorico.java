@@ -11,7 +11,11 @@ import java.time.LocalDateTime;
  * Entidade para histórico de alterações do usuário
  */
 @Entity
-@Table(name = "user_historico")
+@Table(name = "user_historico", indexes = @Index(name = "idx_user_historico_user_data", columnList = "user_id, data_hora_alteracao"))
+@NamedEntityGraph(
+    name = "UserHistorico.user",
+    attributeNodes = @NamedAttributeNode("user")
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,10 +24,10 @@ import java.time.LocalDateTime;
 public class UserHistorico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmTabela("user_historico")
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnoreProperties({"turmas", "criteriosConcluidos"})
     private User user;
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @Setter
 public class UserPlainPassword {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdEmTabela("user_plain_password")
     private Long id;
 
     private Long userId;
@@ -0,0 +1,34 @@
+package bjjapp.enums;
+
+/**
+ * Formatos de exportação em massa
+ */
+public enum FormatoExportacao {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extensao;
+
+    FormatoExportacao(String contentType, String extensao) {
+        this.contentType = contentType;
+        this.extensao = extensao;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+    public static FormatoExportacao fromExtensao(String extensao) {
+        for (FormatoExportacao f : values()) {
+            if (f.extensao.equalsIgnoreCase(extensao)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportação desconhecido: " + extensao + " (use csv ou ndjson)");
+    }
+}
@@ -0,0 +1,169 @@
+package bjjapp.repository;
+
+import bjjapp.entity.PresencaDiaria;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tabelas de agregados de presença (presencas_diarias/mensais e aulas_diarias/mensais).
+ * Os upserts nativos declaram a tabela afetada para não invalidar o cache de segundo nível inteiro.
+ */
+@Repository
+public interface AgregadoPresencaRepository extends JpaRepository<PresencaDiaria, PresencaDiaria.Chave> {
+
+    // Incrementos de uma chamada finalizada
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_diarias"))
+    @Query(value = "INSERT INTO presencas_diarias (aluno_id, turma_id, dia, presencas) " +
+                   "SELECT ca.aluno_id, :turmaId, :dia, 1 FROM chamada_alunos ca WHERE ca.chamada_id = :chamadaId " +
+                   "ON DUPLICATE KEY UPDATE presencas = presencas + 1", nativeQuery = true)
+    int somarPresencasDiarias(@Param("chamadaId") Long chamadaId, @Param("turmaId") Long turmaId, @Param("dia") LocalDate dia);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_mensais"))
+    @Query(value = "INSERT INTO presencas_mensais (aluno_id, turma_id, mes, presencas) " +
+                   "SELECT ca.aluno_id, :turmaId, :mes, 1 FROM chamada_alunos ca WHERE ca.chamada_id = :chamadaId " +
+                   "ON DUPLICATE KEY UPDATE presencas = presencas + 1", nativeQuery = true)
+    int somarPresencasMensais(@Param("chamadaId") Long chamadaId, @Param("turmaId") Long turmaId, @Param("mes") Integer mes);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_diarias"))
+    @Query(value = "INSERT INTO aulas_diarias (turma_id, dia, aulas) VALUES (:turmaId, :dia, 1) " +
+                   "ON DUPLICATE KEY UPDATE aulas = aulas + 1", nativeQuery = true)
+    int somarAulaDiaria(@Param("turmaId") Long turmaId, @Param("dia") LocalDate dia);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_mensais"))
+    @Query(value = "INSERT INTO aulas_mensais (turma_id, mes, aulas) VALUES (:turmaId, :mes, 1) " +
+                   "ON DUPLICATE KEY UPDATE aulas = aulas + 1", nativeQuery = true)
+    int somarAulaMensal(@Param("turmaId") Long turmaId, @Param("mes") Integer mes);
+
+    // Reconstrução a partir de chamadas × chamada_alunos
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_diarias"))
+    @Query(value = "DELETE FROM presencas_diarias", nativeQuery = true)
+    int limparPresencasDiarias();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_mensais"))
+    @Query(value = "DELETE FROM presencas_mensais", nativeQuery = true)
+    int limparPresencasMensais();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_diarias"))
+    @Query(value = "DELETE FROM aulas_diarias", nativeQuery = true)
+    int limparAulasDiarias();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_mensais"))
+    @Query(value = "DELETE FROM aulas_mensais", nativeQuery = true)
+    int limparAulasMensais();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_diarias"))
+    @Query(value = "INSERT INTO presencas_diarias (aluno_id, turma_id, dia, presencas) " +
+                   "SELECT ca.aluno_id, c.turma_id, CAST(c.data_hora_inicio AS DATE), COUNT(*) " +
+                   "FROM chamadas c JOIN chamada_alunos ca ON ca.chamada_id = c.id " +
+                   "WHERE c.finalizada = true AND c.ativo = true " +
+                   "GROUP BY ca.aluno_id, c.turma_id, CAST(c.data_hora_inicio AS DATE)", nativeQuery = true)
+    int reconstruirPresencasDiarias();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_mensais"))
+    @Query(value = "INSERT INTO presencas_mensais (aluno_id, turma_id, mes, presencas) " +
+                   "SELECT aluno_id, turma_id, EXTRACT(YEAR FROM dia) * 100 + EXTRACT(MONTH FROM dia), SUM(presencas) " +
+                   "FROM presencas_diarias " +
+                   "GROUP BY aluno_id, turma_id, EXTRACT(YEAR FROM dia) * 100 + EXTRACT(MONTH FROM dia)", nativeQuery = true)
+    int reconstruirPresencasMensais();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_diarias"))
+    @Query(value = "INSERT INTO aulas_diarias (turma_id, dia, aulas) " +
+                   "SELECT c.turma_id, CAST(c.data_hora_inicio AS DATE), COUNT(*) " +
+                   "FROM chamadas c WHERE c.finalizada = true AND c.ativo = true " +
+                   "GROUP BY c.turma_id, CAST(c.data_hora_inicio AS DATE)", nativeQuery = true)
+    int reconstruirAulasDiarias();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_mensais"))
+    @Query(value = "INSERT INTO aulas_mensais (turma_id, mes, aulas) " +
+                   "SELECT turma_id, EXTRACT(YEAR FROM dia) * 100 + EXTRACT(MONTH FROM dia), SUM(aulas) " +
+                   "FROM aulas_diarias " +
+                   "GROUP BY turma_id, EXTRACT(YEAR FROM dia) * 100 + EXTRACT(MONTH FROM dia)", nativeQuery = true)
+    int reconstruirAulasMensais();
+
+    // Contribuição das chamadas do arquivo morto, somada aos agregados diários na reconstrução
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "presencas_diarias"))
+    @Query(value = "INSERT INTO presencas_diarias (aluno_id, turma_id, dia, presencas) VALUES (:alunoId, :turmaId, :dia, :presencas) " +
+                   "ON DUPLICATE KEY UPDATE presencas = presencas + :presencas", nativeQuery = true)
+    int acrescentarPresencasDiarias(@Param("alunoId") Long alunoId, @Param("turmaId") Long turmaId,
+                                    @Param("dia") LocalDate dia, @Param("presencas") long presencas);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "aulas_diarias"))
+    @Query(value = "INSERT INTO aulas_diarias (turma_id, dia, aulas) VALUES (:turmaId, :dia, :aulas) " +
+                   "ON DUPLICATE KEY UPDATE aulas = aulas + :aulas", nativeQuery = true)
+    int acrescentarAulasDiarias(@Param("turmaId") Long turmaId, @Param("dia") LocalDate dia, @Param("aulas") long aulas);
+
+    @Query("SELECT COUNT(a) FROM AulaMensal a")
+    long countAulasMensais();
+
+    // Leituras
+
+    @Query("SELECT COALESCE(SUM(p.presencas), 0) FROM PresencaMensal p WHERE p.alunoId = :alunoId")
+    Long somarPresencasDoAluno(@Param("alunoId") Long alunoId);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(p.turmaId, SUM(p.presencas)) FROM PresencaDiaria p " +
+           "WHERE p.alunoId = :alunoId AND p.turmaId IN :turmaIds AND p.dia BETWEEN :inicio AND :fim GROUP BY p.turmaId")
+    List<TotalPorTurma> somarPresencasDiarias(@Param("alunoId") Long alunoId, @Param("turmaIds") Collection<Long> turmaIds,
+                                              @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(p.turmaId, SUM(p.presencas)) FROM PresencaMensal p " +
+           "WHERE p.alunoId = :alunoId AND p.turmaId IN :turmaIds AND p.mes BETWEEN :inicio AND :fim GROUP BY p.turmaId")
+    List<TotalPorTurma> somarPresencasMensais(@Param("alunoId") Long alunoId, @Param("turmaIds") Collection<Long> turmaIds,
+                                              @Param("inicio") Integer inicio, @Param("fim") Integer fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(p.turmaId, SUM(p.presencas)) FROM PresencaDiaria p " +
+           "WHERE p.alunoId = :alunoId AND p.dia BETWEEN :inicio AND :fim GROUP BY p.turmaId")
+    List<TotalPorTurma> somarPresencasDiariasDoAluno(@Param("alunoId") Long alunoId,
+                                                     @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(p.turmaId, SUM(p.presencas)) FROM PresencaMensal p " +
+           "WHERE p.alunoId = :alunoId AND p.mes BETWEEN :inicio AND :fim GROUP BY p.turmaId")
+    List<TotalPorTurma> somarPresencasMensaisDoAluno(@Param("alunoId") Long alunoId,
+                                                     @Param("inicio") Integer inicio, @Param("fim") Integer fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(p.turmaId, SUM(p.presencas)) FROM PresencaDiaria p " +
+           "WHERE p.turmaId IN :turmaIds AND p.dia BETWEEN :inicio AND :fim GROUP BY p.turmaId")
+    List<TotalPorTurma> somarPresencasDiariasDasTurmas(@Param("turmaIds") Collection<Long> turmaIds,
+                                                       @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(p.turmaId, SUM(p.presencas)) FROM PresencaMensal p " +
+           "WHERE p.turmaId IN :turmaIds AND p.mes BETWEEN :inicio AND :fim GROUP BY p.turmaId")
+    List<TotalPorTurma> somarPresencasMensaisDasTurmas(@Param("turmaIds") Collection<Long> turmaIds,
+                                                       @Param("inicio") Integer inicio, @Param("fim") Integer fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(a.turmaId, SUM(a.aulas)) FROM AulaDiaria a " +
+           "WHERE a.turmaId IN :turmaIds AND a.dia BETWEEN :inicio AND :fim GROUP BY a.turmaId")
+    List<TotalPorTurma> somarAulasDiarias(@Param("turmaIds") Collection<Long> turmaIds,
+                                          @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT new bjjapp.repository.TotalPorTurma(a.turmaId, SUM(a.aulas)) FROM AulaMensal a " +
+           "WHERE a.turmaId IN :turmaIds AND a.mes BETWEEN :inicio AND :fim GROUP BY a.turmaId")
+    List<TotalPorTurma> somarAulasMensais(@Param("turmaIds") Collection<Long> turmaIds,
+                                          @Param("inicio") Integer inicio, @Param("fim") Integer fim);
+}
@@ -0,0 +1,13 @@
+package bjjapp.repository;
+
+import bjjapp.enums.Faixa;
+
+/**
+ * Aluno marcado em uma chamada aberta, como é mantido na sessão em memória
+ */
+public record AlunoPresente(
+    Long id,
+    String nome,
+    Faixa faixa,
+    Integer grau
+) {}
@@ -0,0 +1,15 @@
+package bjjapp.repository;
+
+import bjjapp.enums.Faixa;
+
+/**
+ * Aluno apto a receber o próximo grau, com os contadores usados na decisão
+ */
+public record AptoGraduacao(
+    Long id,
+    String nome,
+    Faixa faixa,
+    Integer grau,
+    Integer aulasDesdeUltimaGraduacao,
+    Integer aulasParaProximoGrau
+) {}
@@ -1,13 +1,23 @@
 package bjjapp.repository;
 
 import bjjapp.entity.Chamada;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ChamadaRepository extends JpaRepository<Chamada, Long> {
@@ -40,14 +50,20 @@ public interface ChamadaRepository extends JpaRepository<Chamada, Long> {
     @Query("SELECT c FROM Chamada c WHERE c.turma.id IN :turmasIds AND c.finalizada = true AND c.dataHoraInicio BETWEEN :inicio AND :fim")
     List<Chamada> findByTurmasAndPeriodo(@Param("turmasIds") List<Long> turmasIds, @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
 
+    @EntityGraph("Chamada.detalhe")
     List<Chamada> findAllByAtivoTrue();
 
+    @EntityGraph("Chamada.detalhe")
+    Optional<Chamada> findDetalheById(Long id);
+
+    @EntityGraph("Chamada.detalhe")
     List<Chamada> findByTurmaIdAndAtivoTrue(Long turmaId);
 
     List<Chamada> findByProfessorIdAndAtivoTrue(Long professorId);
 
     List<Chamada> findByFinalizadaAndAtivoTrue(Boolean finalizada);
 
+    @EntityGraph("Chamada.detalhe")
     List<Chamada> findByFinalizadaFalseAndAtivoTrue();
 
     List<Chamada> findByFinalizadaTrueAndAtivoTrue();
@@ -55,6 +71,7 @@ public interface ChamadaRepository extends JpaRepository<Chamada, Long> {
     @Query("SELECT c FROM Chamada c WHERE c.dataHoraInicio BETWEEN :inicio AND :fim AND c.ativo = true")
     List<Chamada> findByPeriodoAndAtivoTrue(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
 
+    @EntityGraph("Chamada.detalhe")
     @Query("SELECT c FROM Chamada c JOIN c.alunosPresentes a WHERE a.id = :alunoId AND c.finalizada = true AND c.ativo = true AND a.ativo = true")
     List<Chamada> findByAlunoPresenteAndAtivoTrue(@Param("alunoId") Long alunoId);
 
@@ -64,9 +81,108 @@ public interface ChamadaRepository extends JpaRepository<Chamada, Long> {
     @Query("SELECT COUNT(c) FROM Chamada c JOIN c.alunosPresentes a WHERE a.id = :alunoId AND c.finalizada = true AND c.dataHoraFim > :desde AND c.ativo = true AND a.ativo = true")
     Long countPresencasDesdeAndAtivoTrue(@Param("alunoId") Long alunoId, @Param("desde") LocalDateTime desde);
 
+    @Query("SELECT c.id FROM Chamada c JOIN c.alunosPresentes a WHERE a.id = :alunoId AND c.finalizada = true AND c.ativo = true " +
+           "AND c.dataHoraInicio BETWEEN :inicio AND :fim AND c.dataHoraFim > :desde")
+    List<Long> findIdsPresencasTerminadasApos(@Param("alunoId") Long alunoId, @Param("inicio") LocalDateTime inicio,
+                                              @Param("fim") LocalDateTime fim, @Param("desde") LocalDateTime desde);
+
+    @EntityGraph("Chamada.detalhe")
     @Query("SELECT c FROM Chamada c JOIN c.alunosPresentes a WHERE a.id = :alunoId AND c.finalizada = true AND c.dataHoraInicio BETWEEN :inicio AND :fim AND c.ativo = true AND a.ativo = true")
     List<Chamada> findByAlunoPresenteAndPeriodoAndAtivoTrue(@Param("alunoId") Long alunoId, @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
 
+    @EntityGraph("Chamada.detalhe")
     @Query("SELECT c FROM Chamada c WHERE c.turma.id IN :turmasIds AND c.finalizada = true AND c.dataHoraInicio BETWEEN :inicio AND :fim AND c.ativo = true")
     List<Chamada> findByTurmasAndPeriodoAndAtivoTrue(@Param("turmasIds") List<Long> turmasIds, @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    @Query("SELECT c.finalizada FROM Chamada c WHERE c.id = :id")
+    Optional<Boolean> findFinalizadaById(@Param("id") Long id);
+
+    @Query("SELECT a.id FROM Chamada c JOIN c.alunosPresentes a WHERE c.id = :chamadaId")
+    List<Long> findAlunosPresentesIds(@Param("chamadaId") Long chamadaId);
+
+    @Query("SELECT a.id FROM Chamada c JOIN c.alunosPresentes a WHERE c.id = :chamadaId AND a.id IN :alunosIds")
+    List<Long> findAlunosPresentesIds(@Param("chamadaId") Long chamadaId, @Param("alunosIds") Collection<Long> alunosIds);
+
+    // Update condicional: entre finalizações concorrentes da mesma chamada só uma altera a linha
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Chamada c SET c.finalizada = true, c.dataHoraFim = :dataHoraFim, c.versao = c.versao + 1 WHERE c.id = :id AND c.finalizada = false")
+    int finalizar(@Param("id") Long id, @Param("dataHoraFim") LocalDateTime dataHoraFim);
+
+    // Inserção em lote na tabela de presenças; o NOT EXISTS ignora quem já está marcado.
+    // O espaço declarado evita que o SQL nativo invalide todo o cache de segundo nível.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "chamada_alunos"))
+    @Query(value = "INSERT INTO chamada_alunos (chamada_id, aluno_id) " +
+                   "SELECT :chamadaId, u.id FROM users u WHERE u.id IN (:alunosIds) " +
+                   "AND NOT EXISTS (SELECT 1 FROM chamada_alunos ca WHERE ca.chamada_id = :chamadaId AND ca.aluno_id = u.id)",
+           nativeQuery = true)
+    int inserirPresencas(@Param("chamadaId") Long chamadaId, @Param("alunosIds") Collection<Long> alunosIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "chamada_alunos"))
+    @Query(value = "DELETE FROM chamada_alunos WHERE chamada_id = :chamadaId AND aluno_id IN (:alunosIds)", nativeQuery = true)
+    int removerPresencas(@Param("chamadaId") Long chamadaId, @Param("alunosIds") Collection<Long> alunosIds);
+
+    @Query("SELECT new bjjapp.repository.AlunoPresente(a.id, a.nome, a.faixa, a.grau) FROM Chamada c JOIN c.alunosPresentes a WHERE c.id = :chamadaId")
+    List<AlunoPresente> findAlunosPresentes(@Param("chamadaId") Long chamadaId);
+
+    // Chamadas abertas com turma e professor, usadas para montar as sessões em memória
+    @EntityGraph(attributePaths = {"turma", "turma.dias", "professor"})
+    @Query("SELECT c FROM Chamada c WHERE c.finalizada = false AND c.ativo = true")
+    List<Chamada> findSessoesAbertas();
+
+    // Existe alguma chamada finalizada? Decide se os agregados de presença precisam ser preenchidos
+    boolean existsByFinalizadaTrueAndAtivoTrue();
+
+    @EntityGraph(attributePaths = {"turma", "turma.dias", "professor"})
+    @Query("SELECT c FROM Chamada c WHERE c.id = :id")
+    Optional<Chamada> findSessaoById(@Param("id") Long id);
+
+    // Chamadas finalizadas das turmas do aluno no período, com a presença dele resolvida por outer join
+    @Query("SELECT new bjjapp.repository.PresencaChamada(c.id, c.dataHoraInicio, c.turma.id, " +
+           "CASE WHEN a.id IS NULL THEN false ELSE true END) " +
+           "FROM Chamada c LEFT JOIN c.alunosPresentes a ON a.id = :alunoId " +
+           "WHERE c.turma.id IN (SELECT t.id FROM User u JOIN u.turmas t WHERE u.id = :alunoId) " +
+           "AND c.finalizada = true AND c.dataHoraInicio BETWEEN :inicio AND :fim AND c.ativo = true " +
+           "ORDER BY c.dataHoraInicio, c.id")
+    List<PresencaChamada> findPresencasDoAlunoPorPeriodo(@Param("alunoId") Long alunoId, @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+    // Paginação keyset (mais recentes primeiro): ids da página, depois o grafo pelos ids
+    @Query("SELECT c.id FROM Chamada c WHERE c.ativo = true AND c.id < :cursor ORDER BY c.id DESC")
+    List<Long> findIdsByAtivoTrueBefore(@Param("cursor") Long cursor, Limit limit);
+
+    @Query("SELECT c.id FROM Chamada c WHERE c.turma.id = :turmaId AND c.ativo = true AND c.id < :cursor ORDER BY c.id DESC")
+    List<Long> findIdsByTurmaIdAndAtivoTrueBefore(@Param("turmaId") Long turmaId, @Param("cursor") Long cursor, Limit limit);
+
+    @Query("SELECT c.id FROM Chamada c JOIN c.alunosPresentes a WHERE a.id = :alunoId AND c.finalizada = true AND c.ativo = true AND a.ativo = true AND c.id < :cursor ORDER BY c.id DESC")
+    List<Long> findIdsByAlunoPresenteAndAtivoTrueBefore(@Param("alunoId") Long alunoId, @Param("cursor") Long cursor, Limit limit);
+
+    @EntityGraph("Chamada.detalhe")
+    List<Chamada> findDetalheByIdIn(Collection<Long> ids, Sort sort);
+
+    // Arquivamento: chamadas finalizadas antigas, das mais antigas para as mais novas
+    @Query("SELECT c.id FROM Chamada c WHERE c.finalizada = true AND c.ativo = true AND c.dataHoraInicio < :corte " +
+           "ORDER BY c.dataHoraInicio, c.id")
+    List<Long> findIdsParaArquivar(@Param("corte") LocalDateTime corte, Limit limit);
+
+    @Query("SELECT new bjjapp.repository.PresencaExportada(c.id, t.id, t.nome, c.professor.id, c.dataHoraInicio, " +
+           "c.dataHoraFim, c.finalizada, a.id) " +
+           "FROM Chamada c JOIN c.turma t LEFT JOIN c.alunosPresentes a " +
+           "WHERE c.id IN :ids " +
+           "ORDER BY c.id, a.id")
+    List<PresencaExportada> findParaArquivar(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "chamada_alunos"))
+    @Query(value = "DELETE FROM chamada_alunos WHERE chamada_id IN (:ids)", nativeQuery = true)
+    int excluirPresencasArquivadas(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "chamadas"))
+    @Query(value = "DELETE FROM chamadas WHERE id IN (:ids)", nativeQuery = true)
+    int excluirArquivadas(@Param("ids") Collection<Long> ids);
+
+    // Chamadas do arquivo morto que ainda estão no banco, quando o arquivamento foi interrompido
+    @Query("SELECT c.id FROM Chamada c WHERE c.id IN :ids")
+    Set<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
 }
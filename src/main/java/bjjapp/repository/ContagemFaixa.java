@@ -0,0 +1,14 @@
+package bjjapp.repository;
+
+import bjjapp.enums.Faixa;
+import bjjapp.enums.Role;
+
+/**
+ * Quantidade de usuários ativos por faixa, grau e perfil
+ */
+public record ContagemFaixa(
+    Faixa faixa,
+    Integer grau,
+    Role role,
+    long total
+) {}
@@ -0,0 +1,15 @@
+package bjjapp.repository;
+
+import bjjapp.enums.TipoAlteracao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada da linha do tempo do histórico, lida sem carregar o usuário
+ */
+public record EventoHistorico(
+    Long id,
+    TipoAlteracao tipoAlteracao,
+    String descricao,
+    LocalDateTime dataHoraAlteracao
+) {}
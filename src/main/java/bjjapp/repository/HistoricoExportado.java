@@ -0,0 +1,17 @@
+package bjjapp.repository;
+
+import bjjapp.enums.TipoAlteracao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha da exportação do histórico de alterações
+ */
+public record HistoricoExportado(
+    Long id,
+    Long userId,
+    String nome,
+    TipoAlteracao tipoAlteracao,
+    String descricao,
+    LocalDateTime dataHoraAlteracao
+) {}
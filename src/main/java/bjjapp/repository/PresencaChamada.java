@@ -0,0 +1,13 @@
+package bjjapp.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha compacta do relatório de presenças: uma chamada da turma do aluno e se ele esteve presente
+ */
+public record PresencaChamada(
+    Long id,
+    LocalDateTime dataHoraInicio,
+    Long turmaId,
+    boolean presente
+) {}
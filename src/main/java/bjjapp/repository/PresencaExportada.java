@@ -0,0 +1,18 @@
+package bjjapp.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma chamada com um dos alunos presentes (alunoId null se ninguém esteve presente).
+ * Vem ordenada por chamada, para ser agrupada enquanto é lida.
+ */
+public record PresencaExportada(
+    Long chamadaId,
+    Long turmaId,
+    String turma,
+    Long professorId,
+    LocalDateTime dataHoraInicio,
+    LocalDateTime dataHoraFim,
+    Boolean finalizada,
+    Long alunoId
+) {}
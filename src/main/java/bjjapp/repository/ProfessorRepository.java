@@ -2,7 +2,10 @@ package bjjapp.repository;
 
 import bjjapp.entity.Professor;
 import bjjapp.enums.Faixa;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,6 +19,7 @@ public interface ProfessorRepository extends JpaRepository<Professor, Long> {
 
     List<Professor> findByFaixaAndGrauGreaterThanEqual(Faixa faixa, Integer grau);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Professor> findAllByAtivoTrue();
 
     List<Professor> findByNomeContainingIgnoreCaseAndAtivoTrue(String nome);
@@ -0,0 +1,9 @@
+package bjjapp.repository;
+
+import bjjapp.entity.RequisitoGrau;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RequisitoGrauRepository extends JpaRepository<RequisitoGrau, Integer> {
+}
@@ -0,0 +1,9 @@
+package bjjapp.repository;
+
+/**
+ * Soma de um agregado (presenças ou aulas) por turma
+ */
+public record TotalPorTurma(
+    Long turmaId,
+    Long total
+) {}
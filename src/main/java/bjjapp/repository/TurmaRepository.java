@@ -2,10 +2,16 @@ package bjjapp.repository;
 
 import bjjapp.entity.Turma;
 import bjjapp.enums.Modalidade;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +26,35 @@ public interface TurmaRepository extends JpaRepository<Turma, Long> {
 
     Optional<Turma> findByModalidadeAndHorarioAndAtivoTrue(Modalidade modalidade, LocalTime horario);
 
+    @EntityGraph("Turma.roster")
     List<Turma> findByAtivoTrue();
 
+    // Versões das turmas ativas e dos alunos listados nelas, para o ETag de findByAtivoTrue
+    @Query("SELECT new bjjapp.repository.VersaoConjunto(COUNT(t), COALESCE(SUM(t.versao), 0), COALESCE(SUM(t.id), 0)) " +
+           "FROM Turma t WHERE t.ativo = true")
+    VersaoConjunto findVersaoAtivas();
+
+    @Query("SELECT new bjjapp.repository.VersaoConjunto(COUNT(a), COALESCE(SUM(a.versao), 0), COALESCE(SUM(a.id), 0)) " +
+           "FROM Turma t JOIN t.alunos a WHERE t.ativo = true")
+    VersaoConjunto findVersaoAlunosAtivas();
+
+    @EntityGraph("Turma.roster")
     List<Turma> findByModalidadeAndAtivoTrue(Modalidade modalidade);
+
+    // Roster: turma com dias e alunos
+    @EntityGraph("Turma.roster")
+    Optional<Turma> findRosterById(Long id);
+
+    // Turma sem alunos (como aparece em chamadas e no perfil do aluno); servida pelo cache de segundo nível
+    @EntityGraph("Turma.resumo")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Turma> findResumoById(Long id);
+
+    @EntityGraph("Turma.resumo")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Turma> findResumoByIdIn(Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t.id FROM Turma t WHERE t.ativo = true")
+    List<Long> findIdsByAtivoTrue();
 }
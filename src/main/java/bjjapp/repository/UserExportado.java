@@ -0,0 +1,29 @@
+package bjjapp.repository;
+
+import bjjapp.enums.Faixa;
+import bjjapp.enums.Role;
+
+import java.time.LocalDate;
+
+/**
+ * Linha da exportação de usuários (sem senha e sem coleções)
+ */
+public record UserExportado(
+    Long id,
+    String nome,
+    String username,
+    Role role,
+    Faixa faixa,
+    Integer grau,
+    Integer idade,
+    LocalDate dataNascimento,
+    String nomeResponsavel,
+    String whatsappResponsavel,
+    String telefoneContato,
+    String dataInicioPratica,
+    String dataUltimaGraduacao,
+    Integer aulasAcumuladas,
+    Integer aulasDesdeUltimaGraduacao,
+    LocalDate ultimaGraduacao,
+    boolean ativo
+) {}
@@ -3,22 +3,65 @@ package bjjapp.repository;
 import bjjapp.entity.UserHistorico;
 import bjjapp.entity.User;
 import bjjapp.enums.TipoAlteracao;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UserHistoricoRepository extends JpaRepository<UserHistorico, Long> {
 
+    @EntityGraph("UserHistorico.user")
     List<UserHistorico> findByUserIdOrderByDataHoraAlteracaoDesc(Long userId);
 
+    @EntityGraph("UserHistorico.user")
     List<UserHistorico> findByUserIdAndTipoAlteracao(Long userId, TipoAlteracao tipo);
 
+    @EntityGraph("UserHistorico.user")
     List<UserHistorico> findByDataHoraAlteracaoBetween(LocalDateTime inicio, LocalDateTime fim);
 
+    @EntityGraph("UserHistorico.user")
     List<UserHistorico> findByTipoAlteracao(TipoAlteracao tipo);
 
+    @EntityGraph("UserHistorico.user")
     List<UserHistorico> findByUserOrderByDataHoraAlteracaoDesc(User user);
+
+    // Paginação keyset em (dataHoraAlteracao, id), mais recentes primeiro: com a gravação EVENTUAL os ids
+    // não seguem a ordem das alterações
+    @EntityGraph("UserHistorico.user")
+    @Query("SELECT h FROM UserHistorico h " +
+           "WHERE h.user.id = :userId " +
+           "AND (h.dataHoraAlteracao < :antesDe OR (h.dataHoraAlteracao = :antesDe AND h.id < :antesId)) " +
+           "ORDER BY h.dataHoraAlteracao DESC, h.id DESC")
+    List<UserHistorico> findPaginaByUserId(@Param("userId") Long userId, @Param("antesDe") LocalDateTime antesDe,
+                                           @Param("antesId") Long antesId, Limit limit);
+
+    // Posição do cursor (id da última entrada da página anterior)
+    @Query("SELECT h.dataHoraAlteracao FROM UserHistorico h WHERE h.id = :id AND h.user.id = :userId")
+    Optional<LocalDateTime> findDataHoraAlteracao(@Param("userId") Long userId, @Param("id") Long id);
+
+    // Linha do tempo: keyset em (dataHoraAlteracao, id), servido pelo índice (user_id, data_hora_alteracao).
+    // Lê só a chave estrangeira do usuário, sem join com users.
+    @Query("SELECT new bjjapp.repository.EventoHistorico(h.id, h.tipoAlteracao, h.descricao, h.dataHoraAlteracao) " +
+           "FROM UserHistorico h " +
+           "WHERE h.user.id = :userId AND h.dataHoraAlteracao >= :inicio " +
+           "AND (h.dataHoraAlteracao < :antesDe OR (h.dataHoraAlteracao = :antesDe AND h.id < :antesId)) " +
+           "ORDER BY h.dataHoraAlteracao DESC, h.id DESC")
+    List<EventoHistorico> findLinhaDoTempo(@Param("userId") Long userId, @Param("inicio") LocalDateTime inicio,
+                                           @Param("antesDe") LocalDateTime antesDe, @Param("antesId") Long antesId, Limit limit);
+
+    @Query("SELECT new bjjapp.repository.EventoHistorico(h.id, h.tipoAlteracao, h.descricao, h.dataHoraAlteracao) " +
+           "FROM UserHistorico h " +
+           "WHERE h.user.id = :userId AND h.tipoAlteracao = :tipo AND h.dataHoraAlteracao >= :inicio " +
+           "AND (h.dataHoraAlteracao < :antesDe OR (h.dataHoraAlteracao = :antesDe AND h.id < :antesId)) " +
+           "ORDER BY h.dataHoraAlteracao DESC, h.id DESC")
+    List<EventoHistorico> findLinhaDoTempoByTipo(@Param("userId") Long userId, @Param("tipo") TipoAlteracao tipo,
+                                                 @Param("inicio") LocalDateTime inicio, @Param("antesDe") LocalDateTime antesDe,
+                                                 @Param("antesId") Long antesId, Limit limit);
 }
@@ -3,31 +3,104 @@ package bjjapp.repository;
 import bjjapp.entity.User;
 import bjjapp.enums.Faixa;
 import bjjapp.enums.Role;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findAllByAtivoTrue();
 
+    @EntityGraph("User.detalhe")
     List<User> findByNomeContainingIgnoreCaseAndAtivoTrue(String nome);
 
+    @EntityGraph("User.detalhe")
     List<User> findByFaixaAndAtivoTrue(Faixa faixa);
 
+    @EntityGraph("User.detalhe")
     List<User> findByFaixaAndGrauAndAtivoTrue(Faixa faixa, Integer grau);
 
+    @EntityGraph("User.detalhe")
     @Query("SELECT u FROM User u JOIN u.turmas t WHERE t.id = :turmaId AND u.ativo = true")
     List<User> findByTurmaIdAndAtivoTrue(@Param("turmaId") Long turmaId);
 
+    @EntityGraph("User.detalhe")
     List<User> findByRoleAndAtivoTrue(Role role);
 
+    // Paginação keyset: primeiro os ids da página (sem fetch de coleções), depois o grafo pelos ids
+    @Query("SELECT u.id FROM User u WHERE u.role = :role AND u.ativo = true AND u.id > :after ORDER BY u.id ASC")
+    List<Long> findIdsByRoleAndAtivoTrueAfter(@Param("role") Role role, @Param("after") Long after, Limit limit);
+
+    @EntityGraph("User.detalhe")
+    List<User> findDetalheByIdIn(Collection<Long> ids, Sort sort);
+
+    // Detalhe do aluno: turmas (com dias), que é o que a resposta JSON serializa
+    @EntityGraph("User.detalhe")
+    Optional<User> findDetalheById(Long id);
+
     Optional<User> findByUsername(String username);
 
+    // Checklist de graduação em uma única coluna (bitmask)
+    @Modifying
+    @Query("UPDATE User u SET u.criteriosConcluidos = :criterios, u.versao = u.versao + 1 WHERE u.id = :id")
+    int updateCriteriosConcluidos(@Param("id") Long id, @Param("criterios") Set<Integer> criterios);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new bjjapp.repository.AlunoPresente(u.id, u.nome, u.faixa, u.grau) FROM User u WHERE u.id IN :ids")
+    List<AlunoPresente> findAlunosPresentesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Incremento atômico no banco, sem ler-modificar-gravar as entidades
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.aulasAcumuladas = u.aulasAcumuladas + 1, " +
+           "u.aulasDesdeUltimaGraduacao = u.aulasDesdeUltimaGraduacao + 1, u.versao = u.versao + 1 WHERE u.id IN :ids")
+    int incrementarAulas(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.ativo FROM User u WHERE u.id = :id")
+    Optional<Boolean> findAtivoById(@Param("id") Long id);
+
+    @Query("SELECT t.id FROM User u JOIN u.turmas t WHERE u.id = :id")
+    List<Long> findTurmasIdsById(@Param("id") Long id);
+
+    @Query("SELECT u.versao FROM User u WHERE u.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    @Query("SELECT new bjjapp.repository.VersaoIdade(u.versao, u.idade, u.dataNascimento) FROM User u WHERE u.id = :id")
+    Optional<VersaoIdade> findVersaoIdadeById(@Param("id") Long id);
+
+    @EntityGraph("User.detalhe")
+    Optional<User> findDetalheByUsername(String username);
+
     boolean existsByUsername(String username);
+
+    @Query("SELECT new bjjapp.repository.ContagemFaixa(u.faixa, u.grau, u.role, COUNT(u)) " +
+           "FROM User u WHERE u.ativo = true GROUP BY u.faixa, u.grau, u.role")
+    List<ContagemFaixa> countAtivosPorFaixaGrauRole();
+
+    // Alunos aptos ao próximo grau (join com requisitos_grau), em ordem de id a partir do cursor
+    @Query("SELECT new bjjapp.repository.AptoGraduacao(u.id, u.nome, u.faixa, u.grau, u.aulasDesdeUltimaGraduacao, r.aulas) " +
+           "FROM User u JOIN RequisitoGrau r ON r.grau = u.grau " +
+           "WHERE u.ativo = true AND u.role = bjjapp.enums.Role.ALUNO " +
+           "AND u.aulasDesdeUltimaGraduacao >= r.aulas " +
+           "AND (:faixa IS NULL OR u.faixa = :faixa) " +
+           "AND (:turmaId IS NULL OR u.id IN (SELECT a.id FROM Turma t JOIN t.alunos a WHERE t.id = :turmaId)) " +
+           "AND u.id > :after ORDER BY u.id")
+    List<AptoGraduacao> findAptosParaGraduacao(@Param("faixa") Faixa faixa, @Param("turmaId") Long turmaId,
+                                               @Param("after") Long after, Limit limit);
+
+    // Todos os usernames que começam com o prefixo (a base e as variações numeradas)
+    @Query("SELECT u.username FROM User u WHERE u.username LIKE :prefixo ESCAPE '!'")
+    List<String> findUsernamesByPrefixo(@Param("prefixo") String prefixo);
 }
@@ -0,0 +1,16 @@
+package bjjapp.repository;
+
+/**
+ * Resumo das versões de um conjunto de registros: muda sempre que um registro entra,
+ * sai ou é alterado, sem precisar carregar o conjunto
+ */
+public record VersaoConjunto(
+    Long total,
+    Long somaVersoes,
+    Long somaIds
+) {
+
+    public String etag() {
+        return total + "." + somaVersoes + "." + somaIds;
+    }
+}
@@ -0,0 +1,19 @@
+package bjjapp.repository;
+
+import bjjapp.entity.User;
+
+import java.time.LocalDate;
+
+/**
+ * Versão do usuário e os dados de que depende a idade, sem carregar a entidade
+ */
+public record VersaoIdade(
+    Long versao,
+    Integer idade,
+    LocalDate dataNascimento
+) {
+
+    public Integer idadeAtual() {
+        return User.calcularIdade(idade, dataNascimento);
+    }
+}
@@ -0,0 +1,264 @@
+package bjjapp.service;
+
+import bjjapp.controller.ResumoPresencasAluno;
+import bjjapp.controller.ResumoPresencasTurma;
+import bjjapp.repository.AgregadoPresencaRepository;
+import bjjapp.repository.ChamadaRepository;
+import bjjapp.repository.TotalPorTurma;
+import bjjapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Agregados de presença por dia e por mês: presenças por aluno e turma, e aulas (chamadas
+ * finalizadas) por turma. Só chamadas finalizadas e ativas entram, contadas pela data de início.
+ *
+ * Os agregados são incrementados na transação da finalização. Como só chamadas não finalizadas
+ * podem ser excluídas, a exclusão não os altera. A reconstrução refaz tudo a partir de
+ * chamadas × chamada_alunos e do arquivo morto, sem contar duas vezes as chamadas que estão nos
+ * dois (arquivamento interrompido); deve rodar sem finalizações em andamento.
+ *
+ * Consultas por período somam os meses inteiros pelos agregados mensais e só os dias das pontas
+ * pelos diários.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AgregadosPresencaService {
+
+    private static final int LOTE_ARQUIVADAS = 1000;
+
+    private final AgregadoPresencaRepository agregadoRepository;
+    private final ChamadaRepository chamadaRepository;
+    private final UserRepository userRepository;
+    private final ArquivoChamadas arquivoChamadas;
+
+    private record AulaDoDia(Long turmaId, LocalDate dia) {
+    }
+
+    private record PresencaDoDia(Long alunoId, Long turmaId, LocalDate dia) {
+    }
+
+    /**
+     * Soma a chamada finalizada aos agregados. Roda na transação de ChamadaService.finalizar,
+     * depois que as presenças foram gravadas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarFinalizacao(Long chamadaId, Long turmaId, LocalDateTime dataHoraInicio) {
+        LocalDate dia = dataHoraInicio.toLocalDate();
+        Integer mes = mes(YearMonth.from(dia));
+        agregadoRepository.somarPresencasDiarias(chamadaId, turmaId, dia);
+        agregadoRepository.somarPresencasMensais(chamadaId, turmaId, mes);
+        agregadoRepository.somarAulaDiaria(turmaId, dia);
+        agregadoRepository.somarAulaMensal(turmaId, mes);
+    }
+
+    @Transactional
+    public void reconstruir() {
+        agregadoRepository.limparPresencasMensais();
+        agregadoRepository.limparPresencasDiarias();
+        agregadoRepository.limparAulasMensais();
+        agregadoRepository.limparAulasDiarias();
+        int presencas = agregadoRepository.reconstruirPresencasDiarias();
+        int aulas = agregadoRepository.reconstruirAulasDiarias();
+        int arquivadas = somarArquivadas();
+        // Os mensais saem dos diários, já com as chamadas arquivadas
+        agregadoRepository.reconstruirPresencasMensais();
+        agregadoRepository.reconstruirAulasMensais();
+        log.info("Agregados de presença reconstruídos: {} linhas diárias de presença, {} de aulas, {} chamadas do arquivo morto",
+            presencas, aulas, arquivadas);
+    }
+
+    private int somarArquivadas() {
+        if (arquivoChamadas.isVazio()) {
+            return 0;
+        }
+        Map<AulaDoDia, Long> aulas = new HashMap<>();
+        Map<PresencaDoDia, Long> presencas = new HashMap<>();
+        List<ArquivoChamadas.ChamadaArquivada> lote = new ArrayList<>(LOTE_ARQUIVADAS);
+        arquivoChamadas.percorrer(null, null).forEach(chamada -> {
+            lote.add(chamada);
+            if (lote.size() == LOTE_ARQUIVADAS) {
+                somarLote(lote, aulas, presencas);
+            }
+        });
+        somarLote(lote, aulas, presencas);
+        aulas.forEach((chave, total) -> agregadoRepository.acrescentarAulasDiarias(chave.turmaId(), chave.dia(), total));
+        presencas.forEach((chave, total) ->
+            agregadoRepository.acrescentarPresencasDiarias(chave.alunoId(), chave.turmaId(), chave.dia(), total));
+        return aulas.values().stream().mapToInt(Long::intValue).sum();
+    }
+
+    // Chamadas que ainda estão no banco (arquivamento interrompido) já entraram pela reconstrução em SQL
+    private void somarLote(List<ArquivoChamadas.ChamadaArquivada> lote, Map<AulaDoDia, Long> aulas,
+                           Map<PresencaDoDia, Long> presencas) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        Set<Long> noBanco = chamadaRepository.findIdsExistentes(lote.stream().map(ArquivoChamadas.ChamadaArquivada::id).toList());
+        for (ArquivoChamadas.ChamadaArquivada chamada : lote) {
+            if (noBanco.contains(chamada.id())) {
+                continue;
+            }
+            LocalDate dia = chamada.dataHoraInicio().toLocalDate();
+            aulas.merge(new AulaDoDia(chamada.turmaId(), dia), 1L, Long::sum);
+            for (long alunoId : chamada.alunosIds()) {
+                presencas.merge(new PresencaDoDia(alunoId, chamada.turmaId(), dia), 1L, Long::sum);
+            }
+        }
+        lote.clear();
+    }
+
+    // Preenche os agregados na primeira inicialização com chamadas já finalizadas
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void preencherSeVazio() {
+        if (agregadoRepository.countAulasMensais() == 0
+                && (chamadaRepository.existsByFinalizadaTrueAndAtivoTrue() || !arquivoChamadas.isVazio())) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Total de presenças do aluno em chamadas finalizadas; aluno inativo não tem presenças contabilizadas.
+     */
+    public long contarPresencas(Long alunoId) {
+        if (!userRepository.findAtivoById(alunoId).orElse(false)) {
+            return 0;
+        }
+        return agregadoRepository.somarPresencasDoAluno(alunoId);
+    }
+
+    /**
+     * Presenças do aluno em chamadas terminadas depois de {@code desde} (ex.: a última graduação).
+     *
+     * Os dias seguintes ao de {@code desde} vêm dos agregados. O próprio dia só conta em parte, e
+     * os agregados não guardam horário: ele é lido das chamadas (banco e arquivo morto). Uma
+     * chamada iniciada antes desse dia e terminada depois de {@code desde} não é contada.
+     */
+    public long contarPresencasDesde(Long alunoId, LocalDateTime desde) {
+        if (!userRepository.findAtivoById(alunoId).orElse(false)) {
+            return 0;
+        }
+        LocalDate dia = desde.toLocalDate();
+        LocalDateTime inicioDoDia = dia.atStartOfDay();
+        LocalDateTime fimDoDia = dia.atTime(LocalTime.MAX);
+        Set<Long> doDia = new HashSet<>(chamadaRepository.findIdsPresencasTerminadasApos(alunoId, inicioDoDia, fimDoDia, desde));
+        arquivoChamadas.percorrer(inicioDoDia, fimDoDia)
+            .filter(chamada -> chamada.isPresente(alunoId) && chamada.dataHoraFim() != null && chamada.dataHoraFim().isAfter(desde))
+            .forEach(chamada -> doDia.add(chamada.id()));
+
+        // Chamadas são finalizadas no máximo no dia corrente
+        LocalDate ultimoDia = YearMonth.now().atEndOfMonth();
+        if (!dia.isBefore(ultimoDia)) {
+            return doDia.size();
+        }
+        long seguintes = somarPeriodo(dia.plusDays(1), ultimoDia,
+            (de, ate) -> agregadoRepository.somarPresencasDiariasDoAluno(alunoId, de, ate),
+            (de, ate) -> agregadoRepository.somarPresencasMensaisDoAluno(alunoId, de, ate))
+            .values().stream().mapToLong(Long::longValue).sum();
+        return doDia.size() + seguintes;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o aluno não existir ou o período for inválido
+     */
+    public ResumoPresencasAluno resumoAluno(Long alunoId, LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        boolean alunoAtivo = userRepository.findAtivoById(alunoId)
+            .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
+        List<Long> turmaIds = userRepository.findTurmasIdsById(alunoId);
+        if (turmaIds.isEmpty()) {
+            return new ResumoPresencasAluno(alunoId, inicio, fim, 0, 0, 0, 0.0, List.of());
+        }
+
+        Map<Long, Long> aulas = somarPeriodo(inicio, fim,
+            (de, ate) -> agregadoRepository.somarAulasDiarias(turmaIds, de, ate),
+            (de, ate) -> agregadoRepository.somarAulasMensais(turmaIds, de, ate));
+        // Aluno inativo não tem presenças contabilizadas
+        Map<Long, Long> presencas = !alunoAtivo ? Map.of() : somarPeriodo(inicio, fim,
+            (de, ate) -> agregadoRepository.somarPresencasDiarias(alunoId, turmaIds, de, ate),
+            (de, ate) -> agregadoRepository.somarPresencasMensais(alunoId, turmaIds, de, ate));
+
+        List<ResumoPresencasAluno.PorTurma> porTurma = new ArrayList<>();
+        long totalChamadas = 0;
+        long totalPresencas = 0;
+        for (Long turmaId : new TreeSet<>(turmaIds)) {
+            long chamadas = aulas.getOrDefault(turmaId, 0L);
+            long presentes = presencas.getOrDefault(turmaId, 0L);
+            porTurma.add(new ResumoPresencasAluno.PorTurma(turmaId, chamadas, presentes));
+            totalChamadas += chamadas;
+            totalPresencas += presentes;
+        }
+        double percentual = totalChamadas == 0 ? 0.0 : (double) totalPresencas / totalChamadas * 100;
+        return new ResumoPresencasAluno(alunoId, inicio, fim, totalChamadas, totalPresencas,
+            totalChamadas - totalPresencas, percentual, porTurma);
+    }
+
+    /**
+     * @throws IllegalArgumentException se o período for inválido
+     */
+    public ResumoPresencasTurma resumoTurma(Long turmaId, LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        List<Long> turmaIds = List.of(turmaId);
+        long aulas = somarPeriodo(inicio, fim,
+            (de, ate) -> agregadoRepository.somarAulasDiarias(turmaIds, de, ate),
+            (de, ate) -> agregadoRepository.somarAulasMensais(turmaIds, de, ate)).getOrDefault(turmaId, 0L);
+        long presencas = somarPeriodo(inicio, fim,
+            (de, ate) -> agregadoRepository.somarPresencasDiariasDasTurmas(turmaIds, de, ate),
+            (de, ate) -> agregadoRepository.somarPresencasMensaisDasTurmas(turmaIds, de, ate)).getOrDefault(turmaId, 0L);
+        return new ResumoPresencasTurma(turmaId, inicio, fim, aulas, presencas, aulas == 0 ? 0.0 : (double) presencas / aulas);
+    }
+
+    private static void validarPeriodo(LocalDate inicio, LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("Data final anterior à inicial");
+        }
+    }
+
+    /**
+     * Soma por turma em [inicio, fim]: meses inteiros pelo agregado mensal, pontas pelo diário.
+     */
+    private static Map<Long, Long> somarPeriodo(LocalDate inicio, LocalDate fim,
+                                                BiFunction<LocalDate, LocalDate, List<TotalPorTurma>> diarios,
+                                                BiFunction<Integer, Integer, List<TotalPorTurma>> mensais) {
+        Map<Long, Long> totais = new HashMap<>();
+        YearMonth primeiroInteiro = inicio.getDayOfMonth() == 1 ? YearMonth.from(inicio) : YearMonth.from(inicio).plusMonths(1);
+        YearMonth ultimoInteiro = fim.equals(YearMonth.from(fim).atEndOfMonth()) ? YearMonth.from(fim) : YearMonth.from(fim).minusMonths(1);
+
+        if (primeiroInteiro.isAfter(ultimoInteiro)) {
+            acumular(totais, diarios.apply(inicio, fim));
+            return totais;
+        }
+        acumular(totais, mensais.apply(mes(primeiroInteiro), mes(ultimoInteiro)));
+        if (inicio.isBefore(primeiroInteiro.atDay(1))) {
+            acumular(totais, diarios.apply(inicio, primeiroInteiro.atDay(1).minusDays(1)));
+        }
+        if (fim.isAfter(ultimoInteiro.atEndOfMonth())) {
+            acumular(totais, diarios.apply(ultimoInteiro.plusMonths(1).atDay(1), fim));
+        }
+        return totais;
+    }
+
+    private static void acumular(Map<Long, Long> totais, List<TotalPorTurma> parciais) {
+        parciais.forEach(parcial -> totais.merge(parcial.turmaId(), parcial.total(), Long::sum));
+    }
+
+    // Chave dos agregados mensais: AAAAMM
+    private static Integer mes(YearMonth mes) {
+        return mes.getYear() * 100 + mes.getMonthValue();
+    }
+}
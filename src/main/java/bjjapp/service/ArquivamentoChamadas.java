@@ -0,0 +1,113 @@
+package bjjapp.service;
+
+import bjjapp.repository.ChamadaRepository;
+import bjjapp.repository.PresencaExportada;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move as chamadas finalizadas com mais de {@code bjjapp.arquivo.idade-dias} dias do banco para o
+ * arquivo morto, em lotes.
+ *
+ * Cada lote é gravado no arquivo antes de ser excluído do banco, na mesma transação da exclusão.
+ * Se a exclusão falhar, as chamadas ficam nos dois lugares até a próxima execução, que só as
+ * exclui; enquanto isso as consultas usam a cópia do arquivo. Os agregados de presença não são
+ * alterados.
+ */
+@Slf4j
+@Component
+public class ArquivamentoChamadas {
+
+    private final ChamadaRepository chamadaRepository;
+    private final ArquivoChamadas arquivo;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${bjjapp.arquivo.idade-dias:730}")
+    private int idadeDias;
+
+    @Value("${bjjapp.arquivo.lote:10000}")
+    private int lote;
+
+    public ArquivamentoChamadas(ChamadaRepository chamadaRepository, ArquivoChamadas arquivo,
+                                PlatformTransactionManager transactionManager) {
+        this.chamadaRepository = chamadaRepository;
+        this.arquivo = arquivo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${bjjapp.arquivo.intervalo-ms:86400000}",
+        initialDelayString = "${bjjapp.arquivo.intervalo-ms:86400000}")
+    public void arquivarAgendado() {
+        if (arquivo.isAtivo()) {
+            arquivar();
+        }
+    }
+
+    /**
+     * @return quantidade de chamadas retiradas do banco
+     * @throws IllegalStateException se o arquivo morto estiver desativado
+     */
+    public synchronized int arquivar() {
+        if (!arquivo.isAtivo()) {
+            throw new IllegalStateException("Arquivo morto desativado: configure bjjapp.arquivo.diretorio");
+        }
+        LocalDateTime corte = LocalDateTime.now().minusDays(idadeDias);
+        int total = 0;
+        int excluidas;
+        do {
+            excluidas = transactionTemplate.execute(status -> arquivarLote(corte));
+            total += excluidas;
+        } while (excluidas == lote);
+        if (total > 0) {
+            log.info("Arquivamento: {} chamadas anteriores a {} movidas para o arquivo morto", total, corte);
+        }
+        return total;
+    }
+
+    private int arquivarLote(LocalDateTime corte) {
+        List<Long> ids = chamadaRepository.findIdsParaArquivar(corte, Limit.of(lote));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // As linhas vêm ordenadas por chamada, uma por presente
+        List<ArquivoChamadas.ChamadaArquivada> novas = new ArrayList<>();
+        PresencaExportada atual = null;
+        List<Long> alunosIds = new ArrayList<>();
+        for (PresencaExportada presenca : chamadaRepository.findParaArquivar(ids)) {
+            if (atual != null && !atual.chamadaId().equals(presenca.chamadaId())) {
+                adicionar(novas, atual, alunosIds);
+                alunosIds = new ArrayList<>();
+            }
+            atual = presenca;
+            if (presenca.alunoId() != null) {
+                alunosIds.add(presenca.alunoId());
+            }
+        }
+        if (atual != null) {
+            adicionar(novas, atual, alunosIds);
+        }
+
+        arquivo.gravar(novas);
+        chamadaRepository.excluirPresencasArquivadas(ids);
+        chamadaRepository.excluirArquivadas(ids);
+        return ids.size();
+    }
+
+    // Chamadas que já estão no arquivo (de uma execução interrompida) só são excluídas do banco
+    private void adicionar(List<ArquivoChamadas.ChamadaArquivada> novas, PresencaExportada chamada, List<Long> alunosIds) {
+        if (!arquivo.contem(chamada.chamadaId())) {
+            novas.add(new ArquivoChamadas.ChamadaArquivada(chamada.chamadaId(), chamada.turmaId(), chamada.professorId(),
+                chamada.dataHoraInicio(), chamada.dataHoraFim(), alunosIds.stream().mapToLong(Long::longValue).toArray()));
+        }
+    }
+}
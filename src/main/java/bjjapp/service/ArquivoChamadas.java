@@ -0,0 +1,141 @@
+package bjjapp.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Arquivo morto das chamadas finalizadas antigas, em disco local.
+ *
+ * Cada execução do arquivamento acrescenta arquivos novos ({@code chamadas-NNNNNN.seg}); os
+ * existentes nunca são alterados. Um arquivo só aparece com o nome final depois de gravado e
+ * sincronizado, então um arquivo pela metade nunca é lido. Os ids arquivados ficam em memória,
+ * ordenados, para as consultas descartarem linhas que ainda estejam no banco.
+ *
+ * Com {@code bjjapp.arquivo.diretorio} vazio o arquivo morto fica desativado.
+ */
+@Slf4j
+@Component
+public class ArquivoChamadas {
+
+    private static final String EXTENSAO = ".seg";
+
+    /**
+     * Chamada finalizada lida do arquivo morto. {@code alunosIds} vem ordenado.
+     */
+    public record ChamadaArquivada(Long id, Long turmaId, Long professorId, LocalDateTime dataHoraInicio,
+                                   LocalDateTime dataHoraFim, long[] alunosIds) {
+
+        public boolean isPresente(Long alunoId) {
+            return Arrays.binarySearch(alunosIds, alunoId) >= 0;
+        }
+    }
+
+    private record Estado(List<SegmentoChamadas> segmentos, long[] ids) {
+    }
+
+    @Value("${bjjapp.arquivo.diretorio:}")
+    private String diretorio;
+
+    private volatile Estado estado = new Estado(List.of(), new long[0]);
+
+    @PostConstruct
+    void abrir() throws IOException {
+        if (!isAtivo()) {
+            return;
+        }
+        Path pasta = Path.of(diretorio);
+        Files.createDirectories(pasta);
+        // Sobras de uma gravação interrompida
+        try (DirectoryStream<Path> temporarios = Files.newDirectoryStream(pasta, "*" + EXTENSAO + ".tmp")) {
+            for (Path temporario : temporarios) {
+                Files.delete(temporario);
+            }
+        }
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> existentes = Files.newDirectoryStream(pasta, "chamadas-*" + EXTENSAO)) {
+            existentes.forEach(arquivos::add);
+        }
+        arquivos.sort(null);
+
+        List<SegmentoChamadas> segmentos = new ArrayList<>();
+        for (Path arquivo : arquivos) {
+            segmentos.add(SegmentoChamadas.abrir(arquivo));
+        }
+        estado = new Estado(List.copyOf(segmentos), ids(segmentos));
+        log.info("Arquivo morto de chamadas: {} arquivos, {} chamadas", segmentos.size(), estado.ids().length);
+    }
+
+    public boolean isAtivo() {
+        return diretorio != null && !diretorio.isBlank();
+    }
+
+    public boolean isVazio() {
+        return estado.ids().length == 0;
+    }
+
+    public boolean contem(Long chamadaId) {
+        return Arrays.binarySearch(estado.ids(), chamadaId) >= 0;
+    }
+
+    /**
+     * Chamadas arquivadas com início em [inicio, fim], ordenadas por início dentro de cada
+     * arquivo; limites nulos não restringem.
+     */
+    public Stream<ChamadaArquivada> percorrer(LocalDateTime inicio, LocalDateTime fim) {
+        return estado.segmentos().stream().flatMap(segmento -> segmento.percorrer(inicio, fim));
+    }
+
+    /**
+     * Grava as chamadas num arquivo novo e só então passa a servi-las.
+     *
+     * @throws IllegalStateException se o arquivo morto estiver desativado
+     */
+    public synchronized void gravar(List<ChamadaArquivada> chamadas) {
+        if (!isAtivo()) {
+            throw new IllegalStateException("Arquivo morto desativado: configure bjjapp.arquivo.diretorio");
+        }
+        if (chamadas.isEmpty()) {
+            return;
+        }
+        Estado atual = estado;
+        Path arquivo = Path.of(diretorio, String.format("chamadas-%06d%s", proximoNumero(atual), EXTENSAO));
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try {
+            SegmentoChamadas.gravar(temporario, chamadas);
+            Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+            List<SegmentoChamadas> segmentos = new ArrayList<>(atual.segmentos());
+            segmentos.add(SegmentoChamadas.abrir(arquivo));
+            estado = new Estado(List.copyOf(segmentos), ids(segmentos));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar " + arquivo, e);
+        }
+    }
+
+    private static int proximoNumero(Estado estado) {
+        if (estado.segmentos().isEmpty()) {
+            return 1;
+        }
+        String nome = estado.segmentos().getLast().getArquivo().getFileName().toString();
+        return Integer.parseInt(nome.substring("chamadas-".length(), nome.length() - EXTENSAO.length())) + 1;
+    }
+
+    private static long[] ids(List<SegmentoChamadas> segmentos) {
+        long[] ids = segmentos.stream().flatMapToLong(segmento -> Arrays.stream(segmento.ids())).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,133 @@
+package bjjapp.service;
+
+import bjjapp.enums.Faixa;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Versão imutável do catálogo de requisitos de graduação.
+ *
+ * Tudo o que as consultas usam é calculado na construção: mapas por faixa (EnumMap), a próxima
+ * faixa e os requisitos dela nas progressões infantil e adulta, e o JSON de todas as faixas já
+ * serializado (com variante gzip). Alterar o catálogo é publicar uma nova instância.
+ */
+public final class CatalogoRequisitos {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // Progressão de faixas infantis
+    private static final Map<Faixa, Faixa> PROGRESSAO_FAIXA_INFANTIL = Map.of(
+        Faixa.BRANCA, Faixa.CINZA,
+        Faixa.CINZA, Faixa.AMARELA,
+        Faixa.AMARELA, Faixa.LARANJA,
+        Faixa.LARANJA, Faixa.VERDE
+    );
+
+    // Progressão de faixas adulto
+    private static final Map<Faixa, Faixa> PROGRESSAO_FAIXA_ADULTO = Map.of(
+        Faixa.BRANCA, Faixa.AZUL,
+        Faixa.AZUL, Faixa.ROXA,
+        Faixa.ROXA, Faixa.MARROM,
+        Faixa.MARROM, Faixa.PRETA
+    );
+
+    private final Map<Faixa, List<String>> requisitos;
+    private final Map<Faixa, Integer> idadeMinima;
+    private final Map<Faixa, Faixa> proximaInfantil;
+    private final Map<Faixa, Faixa> proximaAdulto;
+    private final Map<Faixa, List<String>> requisitosProximaInfantil;
+    private final Map<Faixa, List<String>> requisitosProximaAdulto;
+    private final String versao;
+    private final byte[] json;
+    private final byte[] jsonGzip;
+
+    private CatalogoRequisitos(Map<Faixa, List<String>> requisitos, Map<Faixa, Integer> idadeMinima) {
+        EnumMap<Faixa, List<String>> porFaixa = new EnumMap<>(Faixa.class);
+        requisitos.forEach((faixa, lista) -> porFaixa.put(faixa, List.copyOf(lista)));
+        // Faixa Branca/Cinza (transição) usa requisitos da Cinza, salvo se tiver lista própria
+        if (!porFaixa.containsKey(Faixa.BRANCA_CINZA) && porFaixa.containsKey(Faixa.CINZA)) {
+            porFaixa.put(Faixa.BRANCA_CINZA, porFaixa.get(Faixa.CINZA));
+        }
+        this.requisitos = Collections.unmodifiableMap(porFaixa);
+        EnumMap<Faixa, Integer> idades = new EnumMap<>(Faixa.class);
+        idades.putAll(idadeMinima);
+        this.idadeMinima = Collections.unmodifiableMap(idades);
+        this.proximaInfantil = Collections.unmodifiableMap(new EnumMap<>(PROGRESSAO_FAIXA_INFANTIL));
+        this.proximaAdulto = Collections.unmodifiableMap(new EnumMap<>(PROGRESSAO_FAIXA_ADULTO));
+        this.requisitosProximaInfantil = requisitosDaProxima(this.proximaInfantil);
+        this.requisitosProximaAdulto = requisitosDaProxima(this.proximaAdulto);
+
+        try {
+            this.json = OBJECT_MAPPER.writeValueAsBytes(this.requisitos);
+            // A versão cobre tudo o que influencia as respostas, e é estável entre reinícios
+            byte[] completo = OBJECT_MAPPER.writeValueAsBytes(List.of(this.requisitos, this.idadeMinima, this.proximaInfantil, this.proximaAdulto));
+            this.versao = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(completo), 0, 8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Catálogo de requisitos inválido: " + e.getOriginalMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.jsonGzip = gzip(this.json);
+    }
+
+    public static CatalogoRequisitos of(Map<Faixa, List<String>> requisitos, Map<Faixa, Integer> idadeMinima) {
+        return new CatalogoRequisitos(requisitos, idadeMinima);
+    }
+
+    private Map<Faixa, List<String>> requisitosDaProxima(Map<Faixa, Faixa> progressao) {
+        EnumMap<Faixa, List<String>> resultado = new EnumMap<>(Faixa.class);
+        progressao.forEach((faixa, proxima) -> resultado.put(faixa, requisitos.getOrDefault(proxima, List.of())));
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    private static byte[] gzip(byte[] dados) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(dados.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    public Map<Faixa, List<String>> getRequisitos() {
+        return requisitos;
+    }
+
+    public List<String> getRequisitos(Faixa faixa) {
+        return requisitos.getOrDefault(faixa, List.of());
+    }
+
+    public Integer getIdadeMinima(Faixa faixa) {
+        return idadeMinima.get(faixa);
+    }
+
+    public Faixa getProximaFaixa(Faixa faixaAtual, boolean infantil) {
+        return (infantil ? proximaInfantil : proximaAdulto).get(faixaAtual);
+    }
+
+    public List<String> getRequisitosProximaFaixa(Faixa faixaAtual, boolean infantil) {
+        return (infantil ? requisitosProximaInfantil : requisitosProximaAdulto).getOrDefault(faixaAtual, List.of());
+    }
+
+    public String getVersao() {
+        return versao;
+    }
+
+    // Bytes compartilhados: quem recebe não deve alterá-los
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getJsonGzip() {
+        return jsonGzip;
+    }
+}
@@ -1,22 +1,34 @@
 package bjjapp.service;
 
+import bjjapp.controller.ChamadaAberta;
+import bjjapp.controller.CursorPage;
+import bjjapp.controller.PresencasMarcadasResponse;
+import bjjapp.controller.ResumoPresencasAluno;
 import bjjapp.entity.Chamada;
 import bjjapp.entity.Professor;
 import bjjapp.entity.Turma;
 import bjjapp.entity.User;
 import bjjapp.entity.UserHistorico;
+import bjjapp.enums.Faixa;
+import bjjapp.repository.AlunoPresente;
 import bjjapp.repository.ChamadaRepository;
+import bjjapp.repository.PresencaChamada;
 import bjjapp.repository.ProfessorRepository;
 import bjjapp.repository.TurmaRepository;
 import bjjapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,9 +40,29 @@ public class ChamadaService {
     private final ProfessorRepository professorRepository;
     private final UserRepository userRepository;
     private final UserHistoricoService historicoService;
+    private final SessoesChamada sessoesChamada;
+    private final TransmissaoChamadas transmissaoChamadas;
+    private final ConsultaCampos consultaCampos;
+    private final AgregadosPresencaService agregadosPresencaService;
+    private final ArquivoChamadas arquivoChamadas;
+
+    // Campos aceitos em ?fields=
+    private static final ConsultaCampos.Recurso<Chamada> CAMPOS = ConsultaCampos.Recurso.de(Chamada.class)
+        .objeto("turma", "id", "nome", "modalidade", "horario")
+        .objeto("professor", "id", "nome")
+        .coluna("dataHoraInicio")
+        .coluna("dataHoraFim")
+        .coluna("finalizada")
+        .coluna("ativo")
+        .coluna("versao")
+        .lista("alunosPresentes",
+            "select c.id, a.id, a.nome, a.faixa, a.grau from Chamada c join c.alunosPresentes a where c.id in :ids order by a.nome",
+            linha -> new AlunoPresente((Long) linha[0], (String) linha[1], (Faixa) linha[2], (Integer) linha[3]))
+        .valor("totalPresentes",
+            "select c.id, count(a) from Chamada c join c.alunosPresentes a where c.id in :ids group by c.id", 0L);
 
     public Chamada iniciar(Long turmaId, Long professorId) {
-        Turma turma = turmaRepository.findById(turmaId)
+        Turma turma = turmaRepository.findResumoById(turmaId)
             .orElseThrow(() -> new IllegalArgumentException("Turma não encontrada: " + turmaId));
 
         Professor professor = professorRepository.findById(professorId)
@@ -44,7 +76,9 @@ public class ChamadaService {
             .alunosPresentes(new java.util.HashSet<>())
             .build();
 
-        return chamadaRepository.save(chamada);
+        chamada = chamadaRepository.save(chamada);
+        sessoesChamada.abrir(chamada);
+        return chamada;
     }
 
     @Transactional(readOnly = true)
@@ -52,15 +86,79 @@ public class ChamadaService {
         return chamadaRepository.findAllByAtivoTrue();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<Chamada> findAll(Long after, int limit) {
+        return carregarPagina(chamadaRepository.findIdsByAtivoTrueBefore(cursor(after), Limit.of(limit + 1)), limit);
+    }
+
     @Transactional(readOnly = true)
     public Chamada findById(Long id) {
-        return chamadaRepository.findById(id)
+        return chamadaRepository.findDetalheById(id)
             .orElseThrow(() -> new IllegalArgumentException("Chamada não encontrada: " + id));
     }
 
+    /**
+     * @throws IllegalArgumentException se algum campo não existir
+     */
+    public Set<String> campos(String fields) {
+        return CAMPOS.campos(fields);
+    }
+
     @Transactional(readOnly = true)
-    public List<Chamada> findAbertas() {
-        return chamadaRepository.findByFinalizadaFalseAndAtivoTrue();
+    public CursorPage<Map<String, Object>> findAll(Set<String> campos, Long after, int limit) {
+        return paginaCampos(campos, Map.of("ativo", true), after, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> findById(Long id, Set<String> campos) {
+        Map<String, Object> chamada = consultaCampos.buscar(CAMPOS, campos, id)
+            .orElseThrow(() -> new IllegalArgumentException("Chamada não encontrada: " + id));
+        return comSessoes(List.of(chamada), campos).getFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> findByTurmaId(Long turmaId, Set<String> campos, Long after, int limit) {
+        return paginaCampos(campos, Map.of("turma.id", turmaId, "ativo", true), after, limit);
+    }
+
+    private CursorPage<Map<String, Object>> paginaCampos(Set<String> campos, Map<String, ?> filtros, Long after, int limit) {
+        List<Map<String, Object>> linhas = consultaCampos.listar(CAMPOS, campos, filtros, true, after, limit + 1);
+        return CursorPage.of(comSessoes(linhas, campos), limit, linha -> (Long) linha.get("id"));
+    }
+
+    // Presenças de chamadas abertas vêm da sessão, que inclui as marcações ainda não gravadas
+    private List<Map<String, Object>> comSessoes(List<Map<String, Object>> linhas, Set<String> campos) {
+        if (!campos.contains("alunosPresentes") && !campos.contains("totalPresentes")) {
+            return linhas;
+        }
+        for (Map<String, Object> linha : linhas) {
+            sessoesChamada.findAberta((Long) linha.get("id")).ifPresent(aberta -> {
+                if (campos.contains("alunosPresentes")) {
+                    linha.put("alunosPresentes", aberta.alunosPresentes());
+                }
+                if (campos.contains("totalPresentes")) {
+                    linha.put("totalPresentes", (long) aberta.totalPresentes());
+                }
+            });
+        }
+        return linhas;
+    }
+
+    // Chamadas abertas vêm das sessões em memória, com as marcações ainda não gravadas
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ChamadaAberta> findAbertas() {
+        return sessoesChamada.abertas();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<ChamadaAberta> findAberta(Long id) {
+        return sessoesChamada.findAberta(id);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter acompanhar(Long chamadaId) {
+        SessoesChamada.Sessao sessao = sessoesChamada.sessao(chamadaId, "Chamada já está finalizada");
+        return transmissaoChamadas.inscrever(chamadaId, sessao::toChamadaAberta);
     }
 
     @Transactional(readOnly = true)
@@ -69,54 +167,143 @@ public class ChamadaService {
     }
 
     @Transactional(readOnly = true)
-    public List<Chamada> findByAlunoId(Long alunoId) {
-        return chamadaRepository.findByAlunoPresenteAndAtivoTrue(alunoId);
+    public CursorPage<Chamada> findByTurmaId(Long turmaId, Long after, int limit) {
+        return carregarPagina(
+            chamadaRepository.findIdsByTurmaIdAndAtivoTrueBefore(turmaId, cursor(after), Limit.of(limit + 1)), limit);
     }
 
+    // Inclui as chamadas do arquivo morto, como o totalPresencas que acompanha a lista
     @Transactional(readOnly = true)
-    public List<Chamada> findByAlunoIdAndPeriodo(Long alunoId, LocalDateTime inicio, LocalDateTime fim) {
-        return chamadaRepository.findByAlunoPresenteAndPeriodoAndAtivoTrue(alunoId, inicio, fim);
+    public List<Chamada> findByAlunoId(Long alunoId) {
+        return incluirArquivadas(alunoId, chamadaRepository.findByAlunoPresenteAndAtivoTrue(alunoId), null, null);
     }
 
+    /**
+     * Página das chamadas do aluno, incluindo as do arquivo morto. Os ids do arquivo abaixo do
+     * cursor são mesclados aos do banco em ordem decrescente; um id nos dois lugares (arquivamento
+     * interrompido) aparece uma vez, lido do arquivo.
+     */
     @Transactional(readOnly = true)
-    public Map<String, Object> getPresencasEausenciasPorPeriodo(Long alunoId, LocalDateTime inicio, LocalDateTime fim) {
-        // LOG: Parâmetros recebidos
-        System.out.println("[DEBUG] getPresencasEausenciasPorPeriodo - alunoId: " + alunoId);
-        System.out.println("[DEBUG] getPresencasEausenciasPorPeriodo - inicio: " + inicio);
-        System.out.println("[DEBUG] getPresencasEausenciasPorPeriodo - fim: " + fim);
+    public CursorPage<Chamada> findByAlunoId(Long alunoId, Long after, int limit) {
+        long antes = cursor(after);
+        List<Long> ids = chamadaRepository.findIdsByAlunoPresenteAndAtivoTrueBefore(alunoId, antes, Limit.of(limit + 1));
+        if (arquivoChamadas.isVazio() || !userRepository.findAtivoById(alunoId).orElse(false)) {
+            return carregarPagina(ids, limit);
+        }
 
-        User aluno = userRepository.findById(alunoId)
-            .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
+        // O arquivo é percorrido inteiro: os ids não seguem a ordem de data dos arquivos
+        Map<Long, ArquivoChamadas.ChamadaArquivada> arquivadas = new HashMap<>();
+        arquivoChamadas.percorrer(null, null)
+            .filter(chamada -> chamada.id() < antes && chamada.isPresente(alunoId))
+            .sorted(Comparator.comparing(ArquivoChamadas.ChamadaArquivada::id).reversed())
+            .limit(limit + 1)
+            .forEach(chamada -> arquivadas.put(chamada.id(), chamada));
+        TreeSet<Long> todos = new TreeSet<>(Comparator.reverseOrder());
+        todos.addAll(ids);
+        todos.addAll(arquivadas.keySet());
+        CursorPage<Long> pagina = CursorPage.of(todos.stream().limit(limit + 1).toList(), limit, id -> id);
+
+        List<Long> doBanco = pagina.items().stream().filter(id -> !arquivadas.containsKey(id)).toList();
+        List<Chamada> chamadas = new ArrayList<>(doBanco.isEmpty()
+            ? List.of()
+            : chamadaRepository.findDetalheByIdIn(doBanco, Sort.by(Sort.Direction.DESC, "id")));
+        chamadas.addAll(restaurar(pagina.items().stream().filter(arquivadas::containsKey).map(arquivadas::get).toList()));
+        chamadas.sort(Comparator.comparing(Chamada::getId).reversed());
+        return new CursorPage<>(chamadas, pagina.nextCursor());
+    }
 
-        List<Long> turmasIds = aluno.getTurmas().stream()
-            .map(Turma::getId)
-            .toList();
+    // Chamadas são paginadas da mais recente para a mais antiga: o cursor é o menor id já entregue
+    private Long cursor(Long after) {
+        return after != null ? after : Long.MAX_VALUE;
+    }
+
+    private CursorPage<Chamada> carregarPagina(List<Long> ids, int limit) {
+        CursorPage<Long> pagina = CursorPage.of(ids, limit, id -> id);
+        List<Chamada> chamadas = pagina.items().isEmpty()
+            ? List.of()
+            : chamadaRepository.findDetalheByIdIn(pagina.items(), Sort.by(Sort.Direction.DESC, "id"));
+        return new CursorPage<>(chamadas, pagina.nextCursor());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Chamada> findByAlunoIdAndPeriodo(Long alunoId, LocalDateTime inicio, LocalDateTime fim) {
+        return incluirArquivadas(alunoId, chamadaRepository.findByAlunoPresenteAndPeriodoAndAtivoTrue(alunoId, inicio, fim), inicio, fim);
+    }
 
-        if (!aluno.isAtivo()) {
-            List<Chamada> todasChamadas = chamadaRepository.findByTurmasAndPeriodoAndAtivoTrue(turmasIds, inicio, fim);
-            return Map.of(
-                "presencas", new java.util.ArrayList<>(),
-                "ausencias", todasChamadas,
-                "totalChamadas", todasChamadas.size(),
-                "totalPresencas", 0,
-                "totalAusencias", todasChamadas.size(),
-                "percentualPresenca", 0.0
-            );
+    // Junta às chamadas do banco as do aluno no arquivo morto com início em [inicio, fim] (limites nulos não restringem)
+    private List<Chamada> incluirArquivadas(Long alunoId, List<Chamada> doBanco, LocalDateTime inicio, LocalDateTime fim) {
+        List<Chamada> chamadas = new ArrayList<>(doBanco);
+        if (arquivoChamadas.isVazio() || !userRepository.findAtivoById(alunoId).orElse(false)) {
+            return chamadas;
+        }
+        chamadas.removeIf(chamada -> arquivoChamadas.contem(chamada.getId()));
+        List<ArquivoChamadas.ChamadaArquivada> arquivadas = arquivoChamadas.percorrer(inicio, fim)
+            .filter(chamada -> chamada.isPresente(alunoId))
+            .toList();
+        if (!arquivadas.isEmpty()) {
+            chamadas.addAll(restaurar(arquivadas));
+            chamadas.sort(Comparator.comparing(Chamada::getDataHoraInicio).thenComparing(Chamada::getId));
         }
+        return chamadas;
+    }
 
-        System.out.println("[DEBUG] getPresencasEausenciasPorPeriodo - turmasIds: " + turmasIds);
+    // Monta chamadas (não gerenciadas) a partir do arquivo morto, com turma, professor e presentes do banco
+    private List<Chamada> restaurar(List<ArquivoChamadas.ChamadaArquivada> arquivadas) {
+        Map<Long, Turma> turmas = new HashMap<>();
+        turmaRepository.findResumoByIdIn(arquivadas.stream().map(ArquivoChamadas.ChamadaArquivada::turmaId).collect(Collectors.toSet()))
+            .forEach(turma -> turmas.put(turma.getId(), turma));
+        Map<Long, Professor> professores = new HashMap<>();
+        professorRepository.findAllById(arquivadas.stream().map(ArquivoChamadas.ChamadaArquivada::professorId).collect(Collectors.toSet()))
+            .forEach(professor -> professores.put(professor.getId(), professor));
+        Map<Long, User> alunos = new HashMap<>();
+        userRepository.findAllById(arquivadas.stream().flatMapToLong(chamada -> Arrays.stream(chamada.alunosIds()))
+                .boxed().collect(Collectors.toSet()))
+            .forEach(aluno -> alunos.put(aluno.getId(), aluno));
+
+        return arquivadas.stream()
+            .map(arquivada -> Chamada.builder()
+                .id(arquivada.id())
+                .turma(turmas.get(arquivada.turmaId()))
+                .professor(professores.get(arquivada.professorId()))
+                .dataHoraInicio(arquivada.dataHoraInicio())
+                .dataHoraFim(arquivada.dataHoraFim())
+                .finalizada(true)
+                .alunosPresentes(Arrays.stream(arquivada.alunosIds())
+                    .mapToObj(alunos::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()))
+                .build())
+            .toList();
+    }
 
-        List<Chamada> todasChamadas = chamadaRepository.findByTurmasAndPeriodoAndAtivoTrue(turmasIds, inicio, fim);
-        System.out.println("[DEBUG] getPresencasEausenciasPorPeriodo - chamadas encontradas: " + todasChamadas.size());
-        for (Chamada chamada : todasChamadas) {
-            System.out.println("[DEBUG] chamadaId: " + chamada.getId() + ", dataHoraInicio: " + chamada.getDataHoraInicio() + ", finalizada: " + chamada.getFinalizada() + ", ativo: " + chamada.isAtivo());
+    /**
+     * Relatório do aluno em [inicio, fim], dias inteiros. As listas vêm das chamadas (banco e
+     * arquivo morto); os totais, dos agregados de presença.
+     *
+     * @throws IllegalArgumentException se o aluno não existir ou o período for inválido
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getPresencasEausenciasPorPeriodo(Long alunoId, LocalDate inicio, LocalDate fim) {
+        boolean alunoAtivo = userRepository.findAtivoById(alunoId)
+            .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
+        ResumoPresencasAluno resumo = agregadosPresencaService.resumoAluno(alunoId, inicio, fim);
+
+        // Uma linha por chamada das turmas do aluno, com a presença já resolvida no banco
+        LocalDateTime de = inicio.atStartOfDay();
+        LocalDateTime ate = fim.atTime(LocalTime.MAX);
+        List<PresencaChamada> todasChamadas = chamadaRepository.findPresencasDoAlunoPorPeriodo(alunoId, de, ate);
+        if (!arquivoChamadas.isVazio()) {
+            todasChamadas = comArquivadas(alunoId, todasChamadas, de, ate);
         }
 
-        List<Chamada> presencas = new java.util.ArrayList<>();
-        List<Chamada> ausencias = new java.util.ArrayList<>();
+        List<PresencaChamada> presencas = new java.util.ArrayList<>();
+        List<PresencaChamada> ausencias = new java.util.ArrayList<>();
 
-        for (Chamada chamada : todasChamadas) {
-            if (chamada.getAlunosPresentes().contains(aluno)) {
+        for (PresencaChamada chamada : todasChamadas) {
+            if (!alunoAtivo) {
+                // Aluno inativo não tem presenças contabilizadas
+                ausencias.add(new PresencaChamada(chamada.id(), chamada.dataHoraInicio(), chamada.turmaId(), false));
+            } else if (chamada.presente()) {
                 presencas.add(chamada);
             } else {
                 ausencias.add(chamada);
@@ -126,96 +313,130 @@ public class ChamadaService {
         return Map.of(
             "presencas", presencas,
             "ausencias", ausencias,
-            "totalChamadas", todasChamadas.size(),
-            "totalPresencas", presencas.size(),
-            "totalAusencias", ausencias.size(),
-            "percentualPresenca", todasChamadas.isEmpty() ? 0.0 : (double) presencas.size() / todasChamadas.size() * 100
+            "totalChamadas", resumo.totalChamadas(),
+            "totalPresencas", resumo.totalPresencas(),
+            "totalAusencias", resumo.totalAusencias(),
+            "percentualPresenca", resumo.percentualPresenca()
         );
     }
 
-    public Chamada marcarPresenca(Long chamadaId, Long alunoId) {
-        Chamada chamada = findById(chamadaId);
-
-        if (chamada.getFinalizada()) {
-            throw new IllegalStateException("Não é possível marcar presença em chamada finalizada");
-        }
+    // Junta as chamadas das turmas do aluno que estão no arquivo morto, na ordem do relatório
+    private List<PresencaChamada> comArquivadas(Long alunoId, List<PresencaChamada> chamadas, LocalDateTime inicio, LocalDateTime fim) {
+        Set<Long> turmaIds = new HashSet<>(userRepository.findTurmasIdsById(alunoId));
+        List<PresencaChamada> todas = new ArrayList<>(chamadas);
+        todas.removeIf(chamada -> arquivoChamadas.contem(chamada.id()));
+        arquivoChamadas.percorrer(inicio, fim)
+            .filter(chamada -> turmaIds.contains(chamada.turmaId()))
+            .forEach(chamada -> todas.add(new PresencaChamada(chamada.id(), chamada.dataHoraInicio(), chamada.turmaId(),
+                chamada.isPresente(alunoId))));
+        todas.sort(Comparator.comparing(PresencaChamada::dataHoraInicio).thenComparing(PresencaChamada::id));
+        return todas;
+    }
 
-        User aluno = userRepository.findById(alunoId)
-            .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
+    // Marcações vão para a sessão em memória e são gravadas em lote pelo SessoesChamada
+    @Transactional(readOnly = true)
+    public ChamadaAberta marcarPresenca(Long chamadaId, Long alunoId) {
+        SessoesChamada.Sessao sessao = sessoesChamada.sessao(chamadaId, "Não é possível marcar presença em chamada finalizada");
 
-        chamada.marcarPresenca(aluno);
-        return chamadaRepository.save(chamada);
+        if (!sessao.isPresente(alunoId)) {
+            AlunoPresente aluno = userRepository.findAlunosPresentesByIdIn(List.of(alunoId)).stream().findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
+            if (sessao.marcar(aluno)) {
+                transmissaoChamadas.presencasMarcadas(chamadaId, List.of(aluno), sessao.getTotalPresentes());
+            }
+        }
+        return sessao.toChamadaAberta();
     }
 
-    public Chamada marcarPresencas(Long chamadaId, Set<Long> alunosIds) {
-        Chamada chamada = findById(chamadaId);
+    @Transactional(readOnly = true)
+    public PresencasMarcadasResponse marcarPresencas(Long chamadaId, Set<Long> alunosIds) {
+        SessoesChamada.Sessao sessao = sessoesChamada.sessao(chamadaId, "Não é possível marcar presenças em chamada finalizada");
 
-        if (chamada.getFinalizada()) {
-            throw new IllegalStateException("Não é possível marcar presenças em chamada finalizada");
+        // Só os ids ainda ausentes da sessão são consultados, numa única consulta
+        List<Long> jaPresentes = new java.util.ArrayList<>();
+        Set<Long> novos = new java.util.HashSet<>();
+        for (Long alunoId : alunosIds) {
+            (sessao.isPresente(alunoId) ? jaPresentes : novos).add(alunoId);
         }
 
-        for (Long alunoId : alunosIds) {
-            User aluno = userRepository.findById(alunoId)
-                .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
-            chamada.marcarPresenca(aluno);
+        List<AlunoPresente> marcados = new java.util.ArrayList<>();
+        if (!novos.isEmpty()) {
+            for (AlunoPresente aluno : userRepository.findAlunosPresentesByIdIn(novos)) {
+                novos.remove(aluno.id());
+                if (sessao.marcar(aluno)) {
+                    marcados.add(aluno);
+                } else {
+                    jaPresentes.add(aluno.id());
+                }
+            }
+            transmissaoChamadas.presencasMarcadas(chamadaId, marcados, sessao.getTotalPresentes());
         }
 
-        return chamadaRepository.save(chamada);
+        return new PresencasMarcadasResponse(marcados.stream().map(AlunoPresente::id).toList(), jaPresentes, List.copyOf(novos));
     }
 
-    public Chamada removerPresenca(Long chamadaId, Long alunoId) {
-        Chamada chamada = findById(chamadaId);
+    @Transactional(readOnly = true)
+    public ChamadaAberta removerPresenca(Long chamadaId, Long alunoId) {
+        SessoesChamada.Sessao sessao = sessoesChamada.sessao(chamadaId, "Não é possível remover presença de chamada finalizada");
 
-        if (chamada.getFinalizada()) {
-            throw new IllegalStateException("Não é possível remover presença de chamada finalizada");
+        if (sessao.remover(alunoId)) {
+            transmissaoChamadas.presencaRemovida(chamadaId, alunoId, sessao.getTotalPresentes());
+        } else if (userRepository.findAtivoById(alunoId).isEmpty()) {
+            throw new IllegalArgumentException("Aluno não encontrado: " + alunoId);
         }
-
-        User aluno = userRepository.findById(alunoId)
-            .orElseThrow(() -> new IllegalArgumentException("Aluno não encontrado: " + alunoId));
-
-        chamada.removerPresenca(aluno);
-        return chamadaRepository.save(chamada);
+        return sessao.toChamadaAberta();
     }
 
     public Chamada finalizar(Long chamadaId) {
-        Chamada chamada = findById(chamadaId);
+        // Primeiro grava as marcações pendentes, antes de qualquer leitura desta transação
+        sessoesChamada.finalizar(chamadaId);
+
+        Chamada chamada = chamadaRepository.findById(chamadaId)
+            .orElseThrow(() -> new IllegalArgumentException("Chamada não encontrada: " + chamadaId));
 
         if (chamada.getFinalizada()) {
             throw new IllegalStateException("Chamada já está finalizada");
         }
+        String turma = chamada.getTurma().getModalidade().getDescricao();
 
-        chamada.finalizar();
-
-        // Incrementar aulas para todos os alunos presentes
-        for (User aluno : chamada.getAlunosPresentes()) {
-            aluno.incrementarAula();
-            userRepository.save(aluno);
-
-            // Registrar histórico
-            historicoService.save(
-                UserHistorico.presenca(aluno, chamada.getTurma().getModalidade().getDescricao())
-            );
+        LocalDateTime dataHoraFim = LocalDateTime.now();
+        if (chamadaRepository.finalizar(chamadaId, dataHoraFim) == 0) {
+            throw new IllegalStateException("Chamada já está finalizada");
+        }
+        transmissaoChamadas.chamadaFinalizada(chamadaId, dataHoraFim);
+        agregadosPresencaService.registrarFinalizacao(chamadaId, chamada.getTurma().getId(), chamada.getDataHoraInicio());
+
+        // Incrementar aulas de todos os presentes com um único UPDATE e registrar o histórico em lote
+        List<Long> alunosIds = chamadaRepository.findAlunosPresentesIds(chamadaId);
+        if (!alunosIds.isEmpty()) {
+            userRepository.incrementarAulas(alunosIds);
+            historicoService.registrar(alunosIds.stream()
+                .map(alunoId -> UserHistorico.presenca(userRepository.getReferenceById(alunoId), turma))
+                .toList());
         }
 
-        return chamadaRepository.save(chamada);
+        return findById(chamadaId);
     }
 
     public void delete(Long id) {
         Chamada chamada = findById(id);
+        // Só chamadas não finalizadas podem ser excluídas; elas ainda não entraram nos agregados de presença
         if (chamada.getFinalizada()) {
             throw new IllegalStateException("Não é possível deletar chamada finalizada");
         }
         chamada.setAtivo(false);
         chamadaRepository.save(chamada);
+        sessoesChamada.descartar(id);
+        transmissaoChamadas.chamadaExcluida(id);
     }
 
     @Transactional(readOnly = true)
     public Long countPresencas(Long alunoId) {
-        return chamadaRepository.countPresencasByAlunoIdAndAtivoTrue(alunoId);
+        return agregadosPresencaService.contarPresencas(alunoId);
     }
 
     @Transactional(readOnly = true)
     public Long countPresencasDesde(Long alunoId, LocalDateTime desde) {
-        return chamadaRepository.countPresencasDesdeAndAtivoTrue(alunoId, desde);
+        return agregadosPresencaService.contarPresencasDesde(alunoId, desde);
     }
 }
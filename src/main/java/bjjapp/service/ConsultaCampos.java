@@ -0,0 +1,220 @@
+package bjjapp.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Consultas com campos escolhidos pelo cliente ({@code ?fields=id,nome,faixa}).
+ *
+ * Cada recurso declara os campos que aceita. Os campos simples viram colunas de uma única
+ * consulta de tuplas; as coleções pedidas são lidas numa consulta extra por coleção, com todos
+ * os ids da página. Campos e coleções não pedidos não são lidos do banco, e nenhuma entidade
+ * entra no contexto de persistência.
+ */
+@Component
+public class ConsultaCampos {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Coluna(List<String> caminhos, Function<Object[], Object> valor) {
+    }
+
+    /**
+     * Coleção lida à parte. A consulta recebe {@code :ids} e devolve o id do dono na primeira posição.
+     */
+    private record Colecao(String jpql, Function<Object[], Object> item, boolean lista, Object padrao) {
+    }
+
+    /**
+     * Campos aceitos por um recurso. {@code id} é sempre devolvido.
+     */
+    public static final class Recurso<E> {
+
+        private final Class<E> entidade;
+        private final Map<String, Coluna> colunas = new LinkedHashMap<>();
+        private final Map<String, Colecao> colecoes = new LinkedHashMap<>();
+
+        private Recurso(Class<E> entidade) {
+            this.entidade = entidade;
+            coluna("id");
+        }
+
+        public static <E> Recurso<E> de(Class<E> entidade) {
+            return new Recurso<>(entidade);
+        }
+
+        public Recurso<E> coluna(String nome) {
+            colunas.put(nome, new Coluna(List.of(nome), linha -> linha[0]));
+            return this;
+        }
+
+        // Relação para um: devolve um objeto só com os atributos listados
+        public Recurso<E> objeto(String nome, String... atributos) {
+            List<String> caminhos = Arrays.stream(atributos).map(atributo -> nome + "." + atributo).toList();
+            colunas.put(nome, new Coluna(caminhos, item(atributos)));
+            return this;
+        }
+
+        public Recurso<E> calculado(String nome, Function<Object[], Object> valor, String... caminhos) {
+            colunas.put(nome, new Coluna(List.of(caminhos), valor));
+            return this;
+        }
+
+        public Recurso<E> lista(String nome, String jpql, Function<Object[], Object> item) {
+            colecoes.put(nome, new Colecao(jpql, item, true, null));
+            return this;
+        }
+
+        // Valor agregado por dono (ex.: contagem); donos sem linha recebem o padrão
+        public Recurso<E> valor(String nome, String jpql, Object padrao) {
+            colecoes.put(nome, new Colecao(jpql, linha -> linha[0], false, padrao));
+            return this;
+        }
+
+        /**
+         * Lê o parâmetro {@code fields}, na ordem pedida.
+         *
+         * @throws IllegalArgumentException se algum campo não existir no recurso
+         */
+        public Set<String> campos(String fields) {
+            Set<String> campos = new LinkedHashSet<>();
+            campos.add("id");
+            for (String campo : fields.split(",")) {
+                campo = campo.trim();
+                if (campo.isEmpty()) {
+                    continue;
+                }
+                if (!colunas.containsKey(campo) && !colecoes.containsKey(campo)) {
+                    throw new IllegalArgumentException("Campo desconhecido: " + campo
+                        + ". Campos disponíveis: " + String.join(", ", disponiveis()));
+                }
+                campos.add(campo);
+            }
+            return campos;
+        }
+
+        private Set<String> disponiveis() {
+            Set<String> disponiveis = new LinkedHashSet<>(colunas.keySet());
+            disponiveis.addAll(colecoes.keySet());
+            return disponiveis;
+        }
+    }
+
+    /**
+     * Monta um objeto a partir das colunas de uma linha, com os nomes na mesma ordem.
+     */
+    public static Function<Object[], Object> item(String... nomes) {
+        return linha -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (int i = 0; i < nomes.length; i++) {
+                item.put(nomes[i], linha[i]);
+            }
+            return item;
+        };
+    }
+
+    /**
+     * Lista o recurso com os campos pedidos, ordenado por id.
+     *
+     * @param filtros igualdades por atributo (aceita caminhos como {@code turma.id})
+     * @param cursor se informado, só ids depois dele na ordem escolhida
+     * @param limite máximo de linhas, ou null para todas
+     */
+    public <E> List<Map<String, Object>> listar(Recurso<E> recurso, Set<String> campos, Map<String, ?> filtros,
+                                                boolean decrescente, Long cursor, Integer limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(recurso.entidade);
+
+        List<Map.Entry<String, Coluna>> colunas = new ArrayList<>();
+        List<Selection<?>> selecoes = new ArrayList<>();
+        for (String campo : campos) {
+            Coluna coluna = recurso.colunas.get(campo);
+            if (coluna != null) {
+                colunas.add(Map.entry(campo, coluna));
+                coluna.caminhos().forEach(caminho -> selecoes.add(caminho(root, caminho)));
+            }
+        }
+
+        List<Predicate> predicados = new ArrayList<>();
+        filtros.forEach((caminho, valor) -> predicados.add(cb.equal(caminho(root, caminho), valor)));
+        if (cursor != null) {
+            Path<Long> id = root.get("id");
+            predicados.add(decrescente ? cb.lessThan(id, cursor) : cb.greaterThan(id, cursor));
+        }
+        query.select(cb.tuple(selecoes.toArray(Selection[]::new)))
+            .where(predicados.toArray(Predicate[]::new))
+            .orderBy(decrescente ? cb.desc(root.get("id")) : cb.asc(root.get("id")));
+
+        TypedQuery<Tuple> consulta = entityManager.createQuery(query);
+        if (limite != null) {
+            consulta.setMaxResults(limite);
+        }
+
+        List<Map<String, Object>> linhas = new ArrayList<>();
+        for (Tuple tupla : consulta.getResultList()) {
+            Map<String, Object> linha = new LinkedHashMap<>();
+            int posicao = 0;
+            for (Map.Entry<String, Coluna> coluna : colunas) {
+                Object[] valores = new Object[coluna.getValue().caminhos().size()];
+                for (int i = 0; i < valores.length; i++) {
+                    valores[i] = tupla.get(posicao++);
+                }
+                linha.put(coluna.getKey(), coluna.getValue().valor().apply(valores));
+            }
+            linhas.add(linha);
+        }
+
+        if (!linhas.isEmpty()) {
+            List<Object> ids = linhas.stream().map(linha -> linha.get("id")).toList();
+            for (String campo : campos) {
+                Colecao colecao = recurso.colecoes.get(campo);
+                if (colecao != null) {
+                    preencher(linhas, campo, colecao, ids);
+                }
+            }
+        }
+        return linhas;
+    }
+
+    public <E> Optional<Map<String, Object>> buscar(Recurso<E> recurso, Set<String> campos, Object id) {
+        return listar(recurso, campos, Map.of("id", id), false, null, null).stream().findFirst();
+    }
+
+    private void preencher(List<Map<String, Object>> linhas, String campo, Colecao colecao, List<Object> ids) {
+        Map<Object, Object> porDono = new HashMap<>();
+        List<Object[]> resultado = entityManager.createQuery(colecao.jpql(), Object[].class)
+            .setParameter("ids", ids)
+            .getResultList();
+        for (Object[] linha : resultado) {
+            Object valor = colecao.item().apply(Arrays.copyOfRange(linha, 1, linha.length));
+            if (colecao.lista()) {
+                @SuppressWarnings("unchecked")
+                List<Object> itens = (List<Object>) porDono.computeIfAbsent(linha[0], dono -> new ArrayList<>());
+                itens.add(valor);
+            } else {
+                porDono.put(linha[0], valor);
+            }
+        }
+        for (Map<String, Object> linha : linhas) {
+            Object padrao = colecao.lista() ? List.of() : colecao.padrao();
+            linha.put(campo, porDono.getOrDefault(linha.get("id"), padrao));
+        }
+    }
+
+    private static Path<?> caminho(Root<?> root, String caminho) {
+        Path<?> path = root;
+        for (String atributo : caminho.split("\\.")) {
+            path = path.get(atributo);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,133 @@
+package bjjapp.service;
+
+import bjjapp.enums.FormatoExportacao;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Escreve registros (records) um a um em CSV ou NDJSON. As colunas são os componentes do
+ * record, na ordem declarada. Nada é acumulado além do buffer de saída.
+ */
+final class EscritorExportacao<T extends Record> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+        // O flush do gerador só esvazia o buffer dele; quem decide quando enviar é o BufferedWriter
+        .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .setRootValueSeparator(null);
+
+    private static final int BUFFER = 64 * 1024;
+
+    private final FormatoExportacao formato;
+    private final RecordComponent[] componentes;
+    private final Writer writer;
+    private final JsonGenerator json;
+
+    EscritorExportacao(FormatoExportacao formato, Class<T> tipo, OutputStream saida) throws IOException {
+        this.formato = formato;
+        this.componentes = tipo.getRecordComponents();
+        this.writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), BUFFER);
+        if (formato == FormatoExportacao.NDJSON) {
+            this.json = JSON_FACTORY.createGenerator(writer);
+        } else {
+            this.json = null;
+            for (int i = 0; i < componentes.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(componentes[i].getName());
+            }
+            writer.write('\n');
+        }
+    }
+
+    void escrever(T registro) throws IOException {
+        if (json != null) {
+            json.writeStartObject();
+            for (RecordComponent componente : componentes) {
+                json.writeFieldName(componente.getName());
+                escreverJson(valor(componente, registro));
+            }
+            json.writeEndObject();
+            json.flush();
+        } else {
+            for (int i = 0; i < componentes.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csv(valor(componentes[i], registro)));
+            }
+        }
+        writer.write('\n');
+    }
+
+    void concluir() throws IOException {
+        if (json != null) {
+            json.close();
+        }
+        writer.flush();
+    }
+
+    private static Object valor(RecordComponent componente, Record registro) {
+        try {
+            return componente.getAccessor().invoke(registro);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void escreverJson(Object valor) throws IOException {
+        if (valor == null) {
+            json.writeNull();
+        } else if (valor instanceof Long || valor instanceof Integer) {
+            json.writeNumber(((Number) valor).longValue());
+        } else if (valor instanceof Number numero) {
+            json.writeNumber(numero.toString());
+        } else if (valor instanceof Boolean booleano) {
+            json.writeBoolean(booleano);
+        } else if (valor instanceof Collection<?> itens) {
+            json.writeStartArray();
+            for (Object item : itens) {
+                escreverJson(item);
+            }
+            json.writeEndArray();
+        } else {
+            json.writeString(texto(valor));
+        }
+    }
+
+    // Listas viram valores separados por espaço numa única coluna
+    private static String csv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto;
+        if (valor instanceof Collection<?> itens) {
+            StringBuilder junto = new StringBuilder();
+            for (Object item : itens) {
+                if (!junto.isEmpty()) {
+                    junto.append(' ');
+                }
+                junto.append(texto(item));
+            }
+            texto = junto.toString();
+        } else {
+            texto = texto(valor);
+        }
+        if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+        return texto;
+    }
+
+    // Datas em ISO-8601 e enums pelo nome, como nas respostas JSON da API
+    private static String texto(Object valor) {
+        return valor instanceof Enum<?> constante ? constante.name() : valor.toString();
+    }
+}
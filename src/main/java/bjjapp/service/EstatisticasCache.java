@@ -0,0 +1,41 @@
+package bjjapp.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Acertos e falhas do cache de segundo nível (turmas, professores e dias das turmas)
+ * e do cache de consultas, lidos das estatísticas do Hibernate.
+ */
+@Component
+@RequiredArgsConstructor
+public class EstatisticasCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public record Regiao(String nome, long acertos, long falhas, long insercoes) {
+    }
+
+    public record Metricas(List<Regiao> regioes, long consultasAcertos, long consultasFalhas, long consultasInsercoes) {
+    }
+
+    public Metricas getMetricas() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Regiao> regioes = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+            .sorted()
+            .map(nome -> {
+                CacheRegionStatistics regiao = statistics.getDomainDataRegionStatistics(nome);
+                return new Regiao(nome, regiao.getHitCount(), regiao.getMissCount(), regiao.getPutCount());
+            })
+            .toList();
+        return new Metricas(regioes, statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+            statistics.getQueryCachePutCount());
+    }
+}
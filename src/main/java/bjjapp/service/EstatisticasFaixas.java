@@ -0,0 +1,137 @@
+package bjjapp.service;
+
+import bjjapp.entity.User;
+import bjjapp.enums.Faixa;
+import bjjapp.enums.Role;
+import bjjapp.repository.ContagemFaixa;
+import bjjapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Contadores em memória de usuários ativos por faixa, grau e perfil.
+ *
+ * Os serviços informam cada mudança (cadastro, grau, faixa, desativação) e o contador é ajustado
+ * quando a transação é commitada. Na inicialização e periodicamente os contadores são
+ * reconstruídos com um GROUP BY no banco, corrigindo qualquer alteração feita por fora dos serviços.
+ *
+ * A reconstrução consulta o banco e aplica o resultado no mesmo mapa segurando o lock de escrita;
+ * os ajustes seguram o de leitura. Um ajuste commitado durante a consulta espera e é aplicado
+ * sobre o resultado, em vez de se perder na troca do mapa.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EstatisticasFaixas {
+
+    public record Chave(Faixa faixa, Integer grau, Role role) {
+
+        // null para usuários inativos, que não entram nas estatísticas
+        public static Chave of(User user) {
+            return user.isAtivo() ? new Chave(user.getFaixa(), user.getGrau(), user.getRole()) : null;
+        }
+    }
+
+    private final UserRepository userRepository;
+
+    private final Map<Chave, AtomicLong> contadores = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Registra que um usuário passou de {@code antes} para {@code depois} (null = não contado).
+     */
+    public void registrar(Chave antes, Chave depois) {
+        if (Objects.equals(antes, depois)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(antes, depois);
+                }
+            });
+        } else {
+            aplicar(antes, depois);
+        }
+    }
+
+    public Map<String, Long> porFaixa() {
+        Map<String, Long> resultado = new TreeMap<>();
+        ler().forEach((chave, total) -> {
+            if (total > 0) {
+                resultado.merge(chave.faixa().name(), total, Long::sum);
+            }
+        });
+        return resultado;
+    }
+
+    public List<ContagemFaixa> detalhado() {
+        List<ContagemFaixa> resultado = new ArrayList<>();
+        ler().forEach((chave, total) -> {
+            if (total > 0) {
+                resultado.add(new ContagemFaixa(chave.faixa(), chave.grau(), chave.role(), total));
+            }
+        });
+        resultado.sort(Comparator.comparing(ContagemFaixa::faixa)
+            .thenComparing(ContagemFaixa::grau)
+            .thenComparing(c -> c.role() != null ? c.role().name() : ""));
+        return resultado;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${bjjapp.estatisticas.reconciliacao-ms:600000}",
+        initialDelayString = "${bjjapp.estatisticas.reconciliacao-ms:600000}")
+    public void reconciliar() {
+        lock.writeLock().lock();
+        try {
+            Map<Chave, Long> novos = new HashMap<>();
+            for (ContagemFaixa contagem : userRepository.countAtivosPorFaixaGrauRole()) {
+                novos.put(new Chave(contagem.faixa(), contagem.grau(), contagem.role()), contagem.total());
+            }
+            contadores.keySet().retainAll(novos.keySet());
+            novos.forEach((chave, total) -> contadores.computeIfAbsent(chave, c -> new AtomicLong()).set(total));
+            log.debug("Estatísticas de faixas reconciliadas: {} grupos", novos.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void aplicar(Chave antes, Chave depois) {
+        lock.readLock().lock();
+        try {
+            if (antes != null) {
+                contadores.computeIfAbsent(antes, c -> new AtomicLong()).decrementAndGet();
+            }
+            if (depois != null) {
+                contadores.computeIfAbsent(depois, c -> new AtomicLong()).incrementAndGet();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Cópia consistente: não mistura valores de antes e depois de uma reconciliação
+    private Map<Chave, Long> ler() {
+        lock.readLock().lock();
+        try {
+            Map<Chave, Long> copia = new HashMap<>();
+            contadores.forEach((chave, total) -> copia.put(chave, total.get()));
+            return copia;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package bjjapp.service;
+
+import bjjapp.controller.ChamadaExportada;
+import bjjapp.enums.FormatoExportacao;
+import bjjapp.repository.HistoricoExportado;
+import bjjapp.repository.PresencaExportada;
+import bjjapp.repository.TurmaRepository;
+import bjjapp.repository.UserExportado;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Exportação em massa de usuários, chamadas e histórico.
+ *
+ * As linhas são lidas em streaming como projeções, sem entidades no contexto de persistência, e
+ * escritas na saída assim que chegam: o uso de memória não depende do tamanho da tabela. As
+ * chamadas do arquivo morto entram na exportação de chamadas.
+ *
+ * O fetch size vem de {@code bjjapp.exportacao.fetch-size} e vale só para estas consultas. No
+ * MySQL ele é Integer.MIN_VALUE, que faz o Connector/J entregar as linhas uma a uma sem cursor no
+ * servidor; a conexão fica ocupada até o fim do stream, por isso nada mais é consultado durante
+ * a leitura.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ExportacaoService {
+
+    private static final String USERS =
+        "SELECT new bjjapp.repository.UserExportado(u.id, u.nome, u.username, u.role, u.faixa, u.grau, u.idade, " +
+        "u.dataNascimento, u.nomeResponsavel, u.whatsappResponsavel, u.telefoneContato, u.dataInicioPratica, " +
+        "u.dataUltimaGraduacao, u.aulasAcumuladas, u.aulasDesdeUltimaGraduacao, u.ultimaGraduacao, u.ativo) " +
+        "FROM User u ORDER BY u.id";
+
+    // Uma linha por presença, agrupada por chamada na leitura
+    private static final String PRESENCAS =
+        "SELECT new bjjapp.repository.PresencaExportada(c.id, t.id, t.nome, c.professor.id, c.dataHoraInicio, " +
+        "c.dataHoraFim, c.finalizada, a.id) " +
+        "FROM Chamada c JOIN c.turma t LEFT JOIN c.alunosPresentes a " +
+        "WHERE c.ativo = true " +
+        "ORDER BY c.id, a.id";
+
+    private static final String HISTORICO =
+        "SELECT new bjjapp.repository.HistoricoExportado(h.id, u.id, u.nome, h.tipoAlteracao, h.descricao, h.dataHoraAlteracao) " +
+        "FROM UserHistorico h JOIN h.user u " +
+        "ORDER BY h.id";
+
+    private final TurmaRepository turmaRepository;
+    private final ArquivoChamadas arquivoChamadas;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bjjapp.exportacao.fetch-size:1000}")
+    private int fetchSize;
+
+    public void exportarUsers(FormatoExportacao formato, OutputStream saida) throws IOException {
+        EscritorExportacao<UserExportado> escritor = new EscritorExportacao<>(formato, UserExportado.class, saida);
+        try (Stream<UserExportado> users = stream(USERS, UserExportado.class)) {
+            for (Iterator<UserExportado> it = users.iterator(); it.hasNext(); ) {
+                escritor.escrever(it.next());
+            }
+        }
+        escritor.concluir();
+    }
+
+    public void exportarChamadas(FormatoExportacao formato, OutputStream saida) throws IOException {
+        EscritorExportacao<ChamadaExportada> escritor = new EscritorExportacao<>(formato, ChamadaExportada.class, saida);
+        // Primeiro as chamadas do arquivo morto, lidas do disco; as que ainda estiverem no banco são puladas lá
+        if (!arquivoChamadas.isVazio()) {
+            Map<Long, String> turmas = new HashMap<>();
+            turmaRepository.findAll().forEach(turma -> turmas.put(turma.getId(), turma.getNome()));
+            try (Stream<ArquivoChamadas.ChamadaArquivada> arquivadas = arquivoChamadas.percorrer(null, null)) {
+                for (Iterator<ArquivoChamadas.ChamadaArquivada> it = arquivadas.iterator(); it.hasNext(); ) {
+                    ArquivoChamadas.ChamadaArquivada chamada = it.next();
+                    escritor.escrever(new ChamadaExportada(chamada.id(), chamada.turmaId(), turmas.get(chamada.turmaId()),
+                        chamada.professorId(), chamada.dataHoraInicio(), chamada.dataHoraFim(), true,
+                        Arrays.stream(chamada.alunosIds()).boxed().toList()));
+                }
+            }
+        }
+        try (Stream<PresencaExportada> presencas = stream(PRESENCAS, PresencaExportada.class)) {
+            // As linhas vêm ordenadas por chamada: só os presentes da chamada atual ficam em memória
+            PresencaExportada atual = null;
+            List<Long> alunosIds = new ArrayList<>();
+            for (Iterator<PresencaExportada> it = presencas.iterator(); it.hasNext(); ) {
+                PresencaExportada presenca = it.next();
+                if (atual != null && !atual.chamadaId().equals(presenca.chamadaId())) {
+                    escrever(escritor, atual, alunosIds);
+                    alunosIds = new ArrayList<>();
+                }
+                atual = presenca;
+                if (presenca.alunoId() != null) {
+                    alunosIds.add(presenca.alunoId());
+                }
+            }
+            if (atual != null) {
+                escrever(escritor, atual, alunosIds);
+            }
+        }
+        escritor.concluir();
+    }
+
+    public void exportarHistorico(FormatoExportacao formato, OutputStream saida) throws IOException {
+        EscritorExportacao<HistoricoExportado> escritor = new EscritorExportacao<>(formato, HistoricoExportado.class, saida);
+        try (Stream<HistoricoExportado> historico = stream(HISTORICO, HistoricoExportado.class)) {
+            for (Iterator<HistoricoExportado> it = historico.iterator(); it.hasNext(); ) {
+                escritor.escrever(it.next());
+            }
+        }
+        escritor.concluir();
+    }
+
+    private <T> Stream<T> stream(String jpql, Class<T> tipo) {
+        return entityManager.createQuery(jpql, tipo)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .getResultStream();
+    }
+
+    private void escrever(EscritorExportacao<ChamadaExportada> escritor, PresencaExportada presenca, List<Long> alunosIds) throws IOException {
+        if (!arquivoChamadas.contem(presenca.chamadaId())) {
+            escritor.escrever(chamada(presenca, alunosIds));
+        }
+    }
+
+    private static ChamadaExportada chamada(PresencaExportada presenca, List<Long> alunosIds) {
+        return new ChamadaExportada(presenca.chamadaId(), presenca.turmaId(), presenca.turma(), presenca.professorId(),
+            presenca.dataHoraInicio(), presenca.dataHoraFim(), presenca.finalizada(), alunosIds);
+    }
+}
@@ -0,0 +1,12 @@
+package bjjapp.service;
+
+/**
+ * Lançada quando o pool de hashing de senhas está saturado.
+ * Respondida com HTTP 429 para que o cliente tente novamente.
+ */
+public class HashingIndisponivelException extends RuntimeException {
+
+    public HashingIndisponivelException(String message) {
+        super(message);
+    }
+}
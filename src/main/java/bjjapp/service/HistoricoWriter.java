@@ -0,0 +1,245 @@
+package bjjapp.service;
+
+import bjjapp.entity.User;
+import bjjapp.entity.UserHistorico;
+import bjjapp.repository.UserHistoricoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gravação do histórico de usuários.
+ *
+ * Em COMMIT (padrão) os registros são persistidos na transação de quem chamou e vão ao banco
+ * no mesmo lote JDBC do commit. Em EVENTUAL eles são enfileirados depois do commit e gravados
+ * em lotes por escritores em virtual threads, fora do caminho da requisição.
+ *
+ * Cada usuário cai sempre na mesma fila, e cada fila tem um único escritor, então a ordem de
+ * gravação por usuário é preservada.
+ *
+ * Cada lote é gravado na sua própria transação (REQUIRES_NEW): a gravação síncrona roda em
+ * afterCommit, quando a transação de quem chamou já terminou. Um lote que falha é tentado de novo
+ * e, se continuar falhando, gravado registro a registro; os registros que ainda assim não entram
+ * são contados em {@link #falhas()}.
+ */
+@Slf4j
+@Component
+public class HistoricoWriter {
+
+    public enum Durabilidade {
+        COMMIT,
+        EVENTUAL
+    }
+
+    private final UserHistoricoRepository historicoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bjjapp.historico.durabilidade:COMMIT}")
+    private Durabilidade durabilidade;
+
+    @Value("${bjjapp.historico.filas:4}")
+    private int quantidadeFilas;
+
+    @Value("${bjjapp.historico.capacidade:10000}")
+    private int capacidade;
+
+    @Value("${bjjapp.historico.lote:50}")
+    private int tamanhoLote;
+
+    @Value("${bjjapp.historico.espera-ms:500}")
+    private long esperaMs;
+
+    @Value("${bjjapp.historico.tentativas:3}")
+    private int tentativas;
+
+    private final List<BlockingQueue<UserHistorico>> filas = new ArrayList<>();
+    private final List<Thread> escritores = new ArrayList<>();
+    private final AtomicLong falhas = new AtomicLong();
+    private volatile boolean encerrando;
+
+    public HistoricoWriter(UserHistoricoRepository historicoRepository, PlatformTransactionManager transactionManager) {
+        this.historicoRepository = historicoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (durabilidade != Durabilidade.EVENTUAL) {
+            return;
+        }
+        int capacidadePorFila = Math.max(1, capacidade / quantidadeFilas);
+        for (int i = 0; i < quantidadeFilas; i++) {
+            BlockingQueue<UserHistorico> fila = new ArrayBlockingQueue<>(capacidadePorFila);
+            filas.add(fila);
+            escritores.add(Thread.ofVirtual().name("historico-writer-" + i).start(() -> drenar(fila)));
+        }
+        log.info("Histórico em modo EVENTUAL: {} filas de {} registros, lotes de {}", quantidadeFilas, capacidadePorFila, tamanhoLote);
+    }
+
+    public void registrar(List<UserHistorico> historicos) {
+        if (durabilidade == Durabilidade.COMMIT) {
+            historicoRepository.saveAll(historicos);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Só enfileira o que foi de fato commitado (e com o usuário já gravado)
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enfileirar(historicos);
+                }
+            });
+        } else {
+            enfileirar(historicos);
+        }
+    }
+
+    public int pendentes() {
+        return filas.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    /**
+     * Registros descartados depois de esgotadas as tentativas de gravação.
+     */
+    public long falhas() {
+        return falhas.get();
+    }
+
+    private void enfileirar(List<UserHistorico> historicos) {
+        for (UserHistorico historico : historicos) {
+            if (encerrando || !oferecer(historico)) {
+                gravar(List.of(historico));
+            }
+        }
+    }
+
+    /**
+     * Contrapressão: com a fila cheia quem chamou espera até espera-ms; se ainda assim não houver
+     * espaço, o registro é gravado na própria thread. A ordenação por dataHoraAlteracao continua
+     * correta porque o horário é definido no momento do registro, não da gravação.
+     */
+    private boolean oferecer(UserHistorico historico) {
+        BlockingQueue<UserHistorico> fila = filas.get(Math.floorMod(historico.getUser().getId().hashCode(), filas.size()));
+        try {
+            if (fila.offer(historico, esperaMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            log.warn("Fila de histórico cheia; gravando registro do usuário {} de forma síncrona", historico.getUser().getId());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drenar(BlockingQueue<UserHistorico> fila) {
+        List<UserHistorico> lote = new ArrayList<>(tamanhoLote);
+        while (true) {
+            try {
+                UserHistorico primeiro = fila.poll(1, TimeUnit.SECONDS);
+                if (primeiro == null) {
+                    if (encerrando) {
+                        return;
+                    }
+                    continue;
+                }
+                lote.add(primeiro);
+                fila.drainTo(lote, tamanhoLote - 1);
+                gravar(lote);
+                lote.clear();
+            } catch (InterruptedException e) {
+                // Interrompido no encerramento: grava o que ainda estiver na fila antes de sair
+                fila.drainTo(lote);
+                if (!lote.isEmpty()) {
+                    gravar(lote);
+                }
+                return;
+            }
+        }
+    }
+
+    private void gravar(List<UserHistorico> lote) {
+        RuntimeException erro = null;
+        for (int tentativa = 1; tentativa <= tentativas; tentativa++) {
+            try {
+                gravarLote(lote);
+                return;
+            } catch (RuntimeException e) {
+                erro = e;
+                log.warn("Falha ao gravar {} registros de histórico (tentativa {} de {}): {}",
+                    lote.size(), tentativa, tentativas, e.getMessage());
+                if (!aguardar(100L << (tentativa - 1))) {
+                    break;
+                }
+            }
+        }
+        if (lote.size() > 1) {
+            // Isola o registro com problema (ex.: usuário excluído) para não perder o lote inteiro
+            for (UserHistorico historico : lote) {
+                gravar(List.of(historico));
+            }
+            return;
+        }
+        falhas.incrementAndGet();
+        UserHistorico historico = lote.getFirst();
+        log.error("Registro de histórico descartado: usuário {}, {} em {}", historico.getUser().getId(),
+            historico.getTipoAlteracao(), historico.getDataHoraAlteracao(), erro);
+    }
+
+    private void gravarLote(List<UserHistorico> lote) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (UserHistorico historico : lote) {
+                // O id gerado numa tentativa desfeita não existe no banco: sem limpar, saveAll faria merge
+                historico.setId(null);
+                historico.setUser(entityManager.getReference(User.class, historico.getUser().getId()));
+            }
+            historicoRepository.saveAll(lote);
+        });
+    }
+
+    private static boolean aguardar(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        if (escritores.isEmpty()) {
+            return;
+        }
+        encerrando = true;
+        for (Thread escritor : escritores) {
+            escritor.join(TimeUnit.SECONDS.toMillis(30));
+            if (escritor.isAlive()) {
+                escritor.interrupt();
+                escritor.join();
+            }
+        }
+        log.info("Histórico: filas esvaziadas no encerramento");
+    }
+}
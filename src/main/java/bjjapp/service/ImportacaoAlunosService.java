@@ -0,0 +1,404 @@
+package bjjapp.service;
+
+import bjjapp.controller.ImportacaoResultado;
+import bjjapp.controller.ImportacaoResultado.Credencial;
+import bjjapp.controller.ImportacaoResultado.Erro;
+import bjjapp.entity.Turma;
+import bjjapp.entity.User;
+import bjjapp.entity.UserHistorico;
+import bjjapp.entity.UserPlainPassword;
+import bjjapp.enums.Faixa;
+import bjjapp.enums.Role;
+import bjjapp.repository.TurmaRepository;
+import bjjapp.repository.UserPlainPasswordRepository;
+import bjjapp.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em lote de alunos a partir de CSV ou JSON.
+ *
+ * O arquivo é lido de forma incremental e gravado em lotes de {@value #TAMANHO_LOTE} linhas:
+ * usernames saem do {@link UsernameAllocator}, as senhas são codificadas em paralelo e usuários,
+ * aluno_turmas, histórico e credenciais vão ao banco em lotes JDBC numa transação por lote.
+ * Linhas inválidas são reportadas sem interromper o restante do arquivo.
+ */
+@Slf4j
+@Service
+public class ImportacaoAlunosService {
+
+    private static final int TAMANHO_LOTE = 200;
+    private static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final UserRepository userRepository;
+    private final TurmaRepository turmaRepository;
+    private final UserPlainPasswordRepository userPlainPasswordRepository;
+    private final UserHistoricoService historicoService;
+    private final UsernameAllocator usernameAllocator;
+    private final PasswordHashingService passwordHashingService;
+    private final EstatisticasFaixas estatisticasFaixas;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Campos aceitos por linha. No JSON são as chaves de cada objeto; no CSV são as colunas do
+     * cabeçalho (sem diferenciar maiúsculas), com os ids das turmas separados por "|".
+     */
+    public record Linha(
+        String nome,
+        Integer idade,
+        String dataNascimento,
+        String faixa,
+        Integer grau,
+        String telefoneContato,
+        String nomeResponsavel,
+        String whatsappResponsavel,
+        String dataInicioPratica,
+        List<Long> turmasIds
+    ) {}
+
+    private record Pendente(int linha, User user, Set<Long> turmasIds, String senha) {}
+
+    @FunctionalInterface
+    private interface LeitorLinha {
+        Linha ler() throws IOException;
+    }
+
+    public ImportacaoAlunosService(UserRepository userRepository,
+                                   TurmaRepository turmaRepository,
+                                   UserPlainPasswordRepository userPlainPasswordRepository,
+                                   UserHistoricoService historicoService,
+                                   UsernameAllocator usernameAllocator,
+                                   PasswordHashingService passwordHashingService,
+                                   EstatisticasFaixas estatisticasFaixas,
+                                   PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.turmaRepository = turmaRepository;
+        this.userPlainPasswordRepository = userPlainPasswordRepository;
+        this.historicoService = historicoService;
+        this.usernameAllocator = usernameAllocator;
+        this.passwordHashingService = passwordHashingService;
+        this.estatisticasFaixas = estatisticasFaixas;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public ImportacaoResultado importarCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String cabecalho = reader.readLine();
+        if (cabecalho == null || cabecalho.isBlank()) {
+            throw new IllegalArgumentException("Arquivo CSV vazio");
+        }
+        cabecalho = cabecalho.replace("\uFEFF", "");
+        // Planilhas em português costumam exportar com ";"
+        char separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+        Map<String, Integer> colunas = new HashMap<>();
+        List<String> nomes = dividir(cabecalho, separador);
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.put(nomes.get(i).trim().toLowerCase(), i);
+        }
+        if (!colunas.containsKey("nome")) {
+            throw new IllegalArgumentException("Cabeçalho do CSV deve conter a coluna nome");
+        }
+
+        Importacao importacao = new Importacao();
+        String texto;
+        int numero = 1;
+        while ((texto = reader.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            String atual = texto;
+            importacao.processar(numero, () -> linhaCsv(colunas, dividir(atual, separador)));
+        }
+        return importacao.concluir();
+    }
+
+    public ImportacaoResultado importarJson(InputStream in) throws IOException {
+        Importacao importacao = new Importacao();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("O JSON deve ser um array de alunos");
+            }
+            int numero = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                numero++;
+                JsonNode objeto = objectMapper.readTree(parser);
+                importacao.processar(numero, () -> objectMapper.treeToValue(objeto, Linha.class));
+            }
+        }
+        return importacao.concluir();
+    }
+
+    /**
+     * Estado de uma importação: acumula linhas válidas até completar um lote e coleta credenciais e erros.
+     */
+    private class Importacao {
+        private final Set<Long> turmasAtivas = new HashSet<>(turmaRepository.findIdsByAtivoTrue());
+        private final List<Pendente> pendentes = new ArrayList<>(TAMANHO_LOTE);
+        private final List<Credencial> credenciais = new ArrayList<>();
+        private final List<Erro> erros = new ArrayList<>();
+        private int total;
+
+        void processar(int numero, LeitorLinha leitor) {
+            total++;
+            try {
+                adicionar(numero, leitor.ler());
+            } catch (IllegalArgumentException e) {
+                erros.add(new Erro(numero, e.getMessage()));
+            } catch (JsonProcessingException e) {
+                erros.add(new Erro(numero, "Linha inválida: " + e.getOriginalMessage()));
+            } catch (IOException e) {
+                erros.add(new Erro(numero, "Linha inválida: " + e.getMessage()));
+            }
+        }
+
+        private void adicionar(int numero, Linha linha) {
+            User user = novoUser(linha);
+            Set<Long> turmasIds = linha.turmasIds() == null ? Set.of() : new HashSet<>(linha.turmasIds());
+            for (Long turmaId : turmasIds) {
+                if (!turmasAtivas.contains(turmaId)) {
+                    throw new IllegalArgumentException("Turma não encontrada: " + turmaId);
+                }
+            }
+            pendentes.add(new Pendente(numero, user, turmasIds, null));
+            if (pendentes.size() >= TAMANHO_LOTE) {
+                gravarLote();
+            }
+        }
+
+        ImportacaoResultado concluir() {
+            gravarLote();
+            credenciais.sort(Comparator.comparingInt(Credencial::linha));
+            erros.sort(Comparator.comparingInt(Erro::linha));
+            return new ImportacaoResultado(total, credenciais.size(), credenciais, erros);
+        }
+
+        private void gravarLote() {
+            if (pendentes.isEmpty()) {
+                return;
+            }
+            List<String> senhas = pendentes.stream().map(p -> UserService.generatePassword()).toList();
+            List<String> hashes = passwordHashingService.encodeTodos(senhas);
+            List<Pendente> lote = new ArrayList<>(pendentes.size());
+            for (int i = 0; i < pendentes.size(); i++) {
+                Pendente p = pendentes.get(i);
+                p.user().setUsername(usernameAllocator.alocar(p.user().getNome()));
+                p.user().setPassword(hashes.get(i));
+                lote.add(new Pendente(p.linha(), p.user(), p.turmasIds(), senhas.get(i)));
+            }
+            pendentes.clear();
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> persistir(lote));
+            } catch (RuntimeException e) {
+                // Algum registro do lote falhou: grava linha a linha para isolar o erro
+                log.warn("Lote de importação falhou ({}), gravando {} linhas individualmente", e.getMessage(), lote.size());
+                lote.forEach(p -> p.user().setId(null));
+                for (Pendente p : lote) {
+                    gravarIndividual(p);
+                }
+                return;
+            }
+            lote.forEach(p -> credenciais.add(credencial(p)));
+        }
+
+        private void gravarIndividual(Pendente p) {
+            for (int tentativa = 1; ; tentativa++) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persistir(List.of(p)));
+                    credenciais.add(credencial(p));
+                    return;
+                } catch (DataIntegrityViolationException e) {
+                    p.user().setId(null);
+                    usernameAllocator.invalidar(p.user().getNome());
+                    if (tentativa > 1) {
+                        erros.add(new Erro(p.linha(), "Username já está em uso: " + p.user().getUsername()));
+                        return;
+                    }
+                    p.user().setUsername(usernameAllocator.alocar(p.user().getNome()));
+                } catch (RuntimeException e) {
+                    p.user().setId(null);
+                    erros.add(new Erro(p.linha(), e.getMessage()));
+                    return;
+                }
+            }
+        }
+
+        private Credencial credencial(Pendente p) {
+            User user = p.user();
+            return new Credencial(p.linha(), user.getId(), user.getNome(), user.getUsername(), p.senha());
+        }
+    }
+
+    private void persistir(List<Pendente> lote) {
+        List<User> users = new ArrayList<>(lote.size());
+        for (Pendente p : lote) {
+            User user = p.user();
+            user.setTurmas(p.turmasIds().stream()
+                .map(id -> entityManager.getReference(Turma.class, id))
+                .collect(Collectors.toCollection(HashSet::new)));
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        users.forEach(user -> estatisticasFaixas.registrar(null, EstatisticasFaixas.Chave.of(user)));
+        historicoService.registrar(users.stream().map(UserHistorico::cadastro).toList());
+        userPlainPasswordRepository.saveAll(lote.stream().map(p -> {
+            UserPlainPassword credenciais = new UserPlainPassword();
+            credenciais.setUserId(p.user().getId());
+            credenciais.setUsername(p.user().getUsername());
+            credenciais.setPlainPassword(p.senha());
+            return credenciais;
+        }).toList());
+        // Pelo repositório a falha de um INSERT chega como DataIntegrityViolationException
+        userRepository.flush();
+        entityManager.clear();
+    }
+
+    private static User novoUser(Linha linha) {
+        if (linha.nome() == null || linha.nome().isBlank()) {
+            throw new IllegalArgumentException("Nome é obrigatório");
+        }
+        int grau = linha.grau() != null ? linha.grau() : 0;
+        if (grau < 0 || grau > 4) {
+            throw new IllegalArgumentException("Grau deve estar entre 0 e 4");
+        }
+        return User.builder()
+            .nome(linha.nome().trim())
+            .idade(linha.idade())
+            .dataNascimento(data(linha.dataNascimento()))
+            .faixa(faixa(linha.faixa()))
+            .grau(grau)
+            .telefoneContato(linha.telefoneContato())
+            .nomeResponsavel(linha.nomeResponsavel())
+            .whatsappResponsavel(linha.whatsappResponsavel())
+            .dataInicioPratica(linha.dataInicioPratica())
+            .role(Role.ALUNO)
+            .build();
+    }
+
+    private static Faixa faixa(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return Faixa.BRANCA;
+        }
+        try {
+            return Faixa.valueOf(valor.trim().toUpperCase().replace('/', '_').replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Faixa inválida: " + valor);
+        }
+    }
+
+    private static LocalDate data(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return valor.contains("/") ? LocalDate.parse(valor.trim(), DATA_BR) : LocalDate.parse(valor.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data de nascimento inválida: " + valor);
+        }
+    }
+
+    private static Linha linhaCsv(Map<String, Integer> colunas, List<String> valores) {
+        return new Linha(
+            campo(colunas, valores, "nome"),
+            inteiro(campo(colunas, valores, "idade"), "idade"),
+            campo(colunas, valores, "datanascimento"),
+            campo(colunas, valores, "faixa"),
+            inteiro(campo(colunas, valores, "grau"), "grau"),
+            campo(colunas, valores, "telefonecontato"),
+            campo(colunas, valores, "nomeresponsavel"),
+            campo(colunas, valores, "whatsappresponsavel"),
+            campo(colunas, valores, "datainiciopratica"),
+            turmas(campo(colunas, valores, "turmas"))
+        );
+    }
+
+    private static String campo(Map<String, Integer> colunas, List<String> valores, String coluna) {
+        Integer indice = colunas.get(coluna);
+        if (indice == null || indice >= valores.size()) {
+            return null;
+        }
+        String valor = valores.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static Integer inteiro(String valor, String coluna) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + coluna + ": " + valor);
+        }
+    }
+
+    private static List<Long> turmas(String valor) {
+        if (valor == null) {
+            return List.of();
+        }
+        try {
+            return Arrays.stream(valor.split("\\|"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Long::valueOf)
+                .toList();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Turmas inválidas: " + valor);
+        }
+    }
+
+    // Divide uma linha CSV respeitando campos entre aspas ("a; b" e aspas duplicadas "")
+    private static List<String> dividir(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
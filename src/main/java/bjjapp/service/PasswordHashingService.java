@@ -0,0 +1,136 @@
+package bjjapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executa o BCrypt (encode/matches) em um pool próprio, por padrão com um thread a menos que o
+ * número de núcleos, para que rajadas de login e cadastro deixem um núcleo livre aos demais
+ * endpoints.
+ * Com o pool e a fila cheios a tarefa é rejeitada na hora (HashingIndisponivelException → 429).
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int capacidadeFila;
+    private final AtomicLong rejeitados = new AtomicLong();
+
+    public record Metricas(
+        int threads,
+        int ativos,
+        int fila,
+        int capacidadeFila,
+        long concluidos,
+        long rejeitados
+    ) {
+    }
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${bjjapp.hashing.threads:0}") int threads,
+                                  @Value("${bjjapp.hashing.fila:0}") int capacidadeFila) {
+        int tamanho = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.passwordEncoder = passwordEncoder;
+        this.capacidadeFila = capacidadeFila > 0 ? capacidadeFila : tamanho * 4;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(this.capacidadeFila),
+            r -> {
+                Thread t = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String encode(String rawPassword) {
+        return executar(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return executar(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Codifica várias senhas em paralelo (importação em lote). Mantém no máximo uma tarefa por
+     * thread em andamento e espera quando o pool está cheio, deixando a fila para os logins.
+     */
+    public List<String> encodeTodos(List<String> rawPasswords) {
+        int threads = executor.getCorePoolSize();
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        for (int i = 0; i < rawPasswords.size(); i++) {
+            if (i >= threads) {
+                aguardar(futures.get(i - threads));
+            }
+            String rawPassword = rawPasswords.get(i);
+            futures.add(submeterAguardando(() -> passwordEncoder.encode(rawPassword)));
+        }
+        return futures.stream().map(this::aguardar).toList();
+    }
+
+    public Metricas getMetricas() {
+        return new Metricas(
+            executor.getCorePoolSize(),
+            executor.getActiveCount(),
+            executor.getQueue().size(),
+            capacidadeFila,
+            executor.getCompletedTaskCount(),
+            rejeitados.get()
+        );
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        Future<T> future;
+        try {
+            future = executor.submit(tarefa);
+        } catch (RejectedExecutionException e) {
+            rejeitados.incrementAndGet();
+            throw new HashingIndisponivelException("Servidor ocupado, tente novamente em instantes");
+        }
+        return aguardar(future);
+    }
+
+    private <T> Future<T> submeterAguardando(Callable<T> tarefa) {
+        while (true) {
+            try {
+                return executor.submit(tarefa);
+            } catch (RejectedExecutionException e) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Hashing de senha interrompido", ie);
+                }
+            }
+        }
+    }
+
+    private <T> T aguardar(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing de senha interrompido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -1,23 +1,102 @@
 package bjjapp.service;
 
 import bjjapp.enums.Faixa;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
- * Serviço para gerenciar requisitos de graduação por faixa
+ * Serviço para gerenciar requisitos de graduação por faixa.
+ *
+ * As consultas leem uma versão imutável do catálogo ({@link CatalogoRequisitos}). O catálogo
+ * padrão está no código; se {@code bjjapp.requisitos.arquivo} apontar para um JSON, ele
+ * sobrepõe as faixas que definir e pode ser recarregado sem reiniciar a aplicação.
  */
+@Slf4j
 @Service
 public class RequisitosGraduacaoService {
 
-    // Requisitos técnicos por faixa
-    private static final Map<Faixa, List<String>> REQUISITOS_POR_FAIXA = new HashMap<>();
+    /**
+     * Formato do arquivo de requisitos: {"requisitos": {"AZUL": ["..."]}, "idadeMinima": {"CINZA": 7}}
+     */
+    record ArquivoRequisitos(Map<Faixa, List<String>> requisitos, Map<Faixa, Integer> idadeMinima) {
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Value("${bjjapp.requisitos.arquivo:}")
+    private String arquivo;
+
+    private volatile CatalogoRequisitos catalogo = CatalogoRequisitos.of(requisitosPadrao(), idadesMinimasPadrao());
+
+    @PostConstruct
+    void carregar() {
+        if (!arquivo.isBlank()) {
+            recarregar();
+        }
+    }
+
+    /**
+     * Relê o arquivo de requisitos e publica uma nova versão do catálogo. Se o arquivo for
+     * inválido, a versão atual continua valendo.
+     *
+     * @throws IllegalStateException se nenhum arquivo estiver configurado
+     * @throws IllegalArgumentException se o arquivo não puder ser lido
+     */
+    public synchronized CatalogoRequisitos recarregar() {
+        if (arquivo.isBlank()) {
+            throw new IllegalStateException("Nenhum arquivo de requisitos configurado (bjjapp.requisitos.arquivo)");
+        }
+        ArquivoRequisitos conteudo;
+        try {
+            conteudo = OBJECT_MAPPER.readValue(Files.readAllBytes(Path.of(arquivo)), ArquivoRequisitos.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Arquivo de requisitos inválido: " + e.getMessage(), e);
+        }
+        Map<Faixa, List<String>> requisitos = new EnumMap<>(requisitosPadrao());
+        if (conteudo.requisitos() != null) {
+            requisitos.putAll(conteudo.requisitos());
+        }
+        Map<Faixa, Integer> idades = new EnumMap<>(idadesMinimasPadrao());
+        if (conteudo.idadeMinima() != null) {
+            idades.putAll(conteudo.idadeMinima());
+        }
+        CatalogoRequisitos novo = CatalogoRequisitos.of(requisitos, idades);
+        if (!novo.getVersao().equals(catalogo.getVersao())) {
+            log.info("Catálogo de requisitos atualizado: versão {} -> {}", catalogo.getVersao(), novo.getVersao());
+        }
+        catalogo = novo;
+        return novo;
+    }
+
+    public CatalogoRequisitos getCatalogo() {
+        return catalogo;
+    }
+
+    public String getVersao() {
+        return catalogo.getVersao();
+    }
+
+    private static Map<Faixa, Integer> idadesMinimasPadrao() {
+        Map<Faixa, Integer> IDADE_MINIMA_POR_FAIXA = new EnumMap<>(Faixa.class);
+        IDADE_MINIMA_POR_FAIXA.put(Faixa.CINZA, 7);
+        IDADE_MINIMA_POR_FAIXA.put(Faixa.LARANJA, 10);
+        return IDADE_MINIMA_POR_FAIXA;
+    }
 
-    // Idade mínima por faixa
-    private static final Map<Faixa, Integer> IDADE_MINIMA_POR_FAIXA = new HashMap<>();
+    // Requisitos técnicos por faixa
+    private static Map<Faixa, List<String>> requisitosPadrao() {
+        Map<Faixa, List<String>> REQUISITOS_POR_FAIXA = new EnumMap<>(Faixa.class);
 
-    static {
         // =============================================
         // FAIXAS INFANTIS
         // =============================================
@@ -34,8 +113,6 @@ public class RequisitosGraduacaoService {
             "1 Finalização da montada",
             "Participar de pelo menos 1 campeonato"
         ));
-        IDADE_MINIMA_POR_FAIXA.put(Faixa.CINZA, 7);
-
         // Faixa Amarela
         REQUISITOS_POR_FAIXA.put(Faixa.AMARELA, Arrays.asList(
             "Transição das guardas",
@@ -60,8 +137,6 @@ public class RequisitosGraduacaoService {
             "Noções de regra (pontuação)",
             "Participar de pelo menos 2 campeonatos"
         ));
-        IDADE_MINIMA_POR_FAIXA.put(Faixa.LARANJA, 10);
-
         // Faixa Verde
         REQUISITOS_POR_FAIXA.put(Faixa.VERDE, Arrays.asList(
             "5 Quedas",
@@ -151,28 +226,11 @@ public class RequisitosGraduacaoService {
             "Desenvolvimento contínuo"
         ));
 
-        // Faixa Branca/Cinza (transição) usa requisitos da Cinza
-        REQUISITOS_POR_FAIXA.put(Faixa.BRANCA_CINZA, REQUISITOS_POR_FAIXA.get(Faixa.CINZA));
+        return REQUISITOS_POR_FAIXA;
     }
 
-    // Mapa de progressão de faixas infantis
-    private static final Map<Faixa, Faixa> PROGRESSAO_FAIXA_INFANTIL = Map.of(
-        Faixa.BRANCA, Faixa.CINZA,
-        Faixa.CINZA, Faixa.AMARELA,
-        Faixa.AMARELA, Faixa.LARANJA,
-        Faixa.LARANJA, Faixa.VERDE
-    );
-
-    // Mapa de progressão de faixas adulto
-    private static final Map<Faixa, Faixa> PROGRESSAO_FAIXA_ADULTO = Map.of(
-        Faixa.BRANCA, Faixa.AZUL,
-        Faixa.AZUL, Faixa.ROXA,
-        Faixa.ROXA, Faixa.MARROM,
-        Faixa.MARROM, Faixa.PRETA
-    );
-
     public List<String> getRequisitosPorFaixa(Faixa faixa) {
-        return REQUISITOS_POR_FAIXA.getOrDefault(faixa, Collections.emptyList());
+        return catalogo.getRequisitos(faixa);
     }
 
     public List<String> getRequisitosPorFaixa(String faixaStr) {
@@ -185,19 +243,19 @@ public class RequisitosGraduacaoService {
     }
 
     public Map<Faixa, List<String>> getTodosRequisitos() {
-        return Collections.unmodifiableMap(REQUISITOS_POR_FAIXA);
+        return catalogo.getRequisitos();
     }
 
     public Integer getIdadeMinima(Faixa faixa) {
-        return IDADE_MINIMA_POR_FAIXA.get(faixa);
+        return catalogo.getIdadeMinima(faixa);
     }
 
     public Faixa getProximaFaixaInfantil(Faixa faixaAtual) {
-        return PROGRESSAO_FAIXA_INFANTIL.get(faixaAtual);
+        return catalogo.getProximaFaixa(faixaAtual, true);
     }
 
     public Faixa getProximaFaixaAdulto(Faixa faixaAtual) {
-        return PROGRESSAO_FAIXA_ADULTO.get(faixaAtual);
+        return catalogo.getProximaFaixa(faixaAtual, false);
     }
 
     /**
@@ -222,13 +280,7 @@ public class RequisitosGraduacaoService {
      * Se idade >= 15 anos: usa progressão adulto
      */
     public Faixa getProximaFaixa(Faixa faixaAtual, Integer idade) {
-        if (isInfantil(idade)) {
-            // Aluno infantil - usa progressão infantil
-            return PROGRESSAO_FAIXA_INFANTIL.get(faixaAtual);
-        } else {
-            // Aluno adulto - usa progressão adulto
-            return PROGRESSAO_FAIXA_ADULTO.get(faixaAtual);
-        }
+        return catalogo.getProximaFaixa(faixaAtual, isInfantil(idade));
     }
 
     /**
@@ -254,9 +306,10 @@ public class RequisitosGraduacaoService {
         }
 
         // Verificar idade mínima para próxima faixa (se aplicável)
-        Faixa proximaFaixa = getProximaFaixaInfantil(faixaAtual);
+        CatalogoRequisitos atual = catalogo;
+        Faixa proximaFaixa = atual.getProximaFaixa(faixaAtual, true);
         if (proximaFaixa != null && idade != null) {
-            Integer idadeMinima = getIdadeMinima(proximaFaixa);
+            Integer idadeMinima = atual.getIdadeMinima(proximaFaixa);
             if (idadeMinima != null && idade < idadeMinima) {
                 return false;
             }
@@ -271,10 +324,6 @@ public class RequisitosGraduacaoService {
      * Se adulto, retorna requisitos da próxima faixa adulta
      */
     public List<String> getRequisitosParaProximaFaixa(Faixa faixaAtual, Integer idade) {
-        Faixa proximaFaixa = getProximaFaixa(faixaAtual, idade);
-        if (proximaFaixa != null) {
-            return getRequisitosPorFaixa(proximaFaixa);
-        }
-        return Collections.emptyList();
+        return catalogo.getRequisitosProximaFaixa(faixaAtual, isInfantil(idade));
     }
 }
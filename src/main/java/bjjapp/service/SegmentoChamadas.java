@@ -0,0 +1,284 @@
+package bjjapp.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Um arquivo do arquivo morto de chamadas, imutável depois de gravado.
+ *
+ * Formato colunar: cabeçalho com o número de linhas, o intervalo de datas e a posição de cada
+ * coluna, seguido das colunas. As linhas são ordenadas por data de início e id; todos os valores
+ * são varints, com as datas e os ids gravados como diferença para a linha anterior e os presentes
+ * de cada chamada como quantidade seguida das diferenças entre ids ordenados.
+ *
+ * A leitura é feita sobre o arquivo mapeado em memória, decodificando as colunas lado a lado.
+ */
+final class SegmentoChamadas {
+
+    private static final int MAGICO = 0x424A4A43; // "BJJC"
+    private static final int VERSAO = 1;
+    private static final int COLUNAS = 6;
+    private static final int CABECALHO = 4 + 4 + 4 + 8 + 8 + 4 * COLUNAS + 4;
+
+    private static final int INICIO = 0;
+    private static final int ID = 1;
+    private static final int FIM = 2;
+    private static final int TURMA = 3;
+    private static final int PROFESSOR = 4;
+    private static final int PRESENTES = 5;
+
+    private final Path arquivo;
+    private final MappedByteBuffer dados;
+    private final int linhas;
+    private final long menorInicio;
+    private final long maiorInicio;
+    private final int[] posicoes = new int[COLUNAS];
+
+    private SegmentoChamadas(Path arquivo, MappedByteBuffer dados) {
+        this.arquivo = arquivo;
+        this.dados = dados;
+        if (dados.limit() < CABECALHO || dados.getInt(0) != MAGICO || dados.getInt(4) != VERSAO) {
+            throw new IllegalStateException("Arquivo de chamadas inválido: " + arquivo);
+        }
+        this.linhas = dados.getInt(8);
+        this.menorInicio = dados.getLong(12);
+        this.maiorInicio = dados.getLong(20);
+        for (int i = 0; i < COLUNAS; i++) {
+            posicoes[i] = dados.getInt(28 + 4 * i);
+        }
+        if (dados.getInt(28 + 4 * COLUNAS) != dados.limit()) {
+            throw new IllegalStateException("Arquivo de chamadas incompleto: " + arquivo);
+        }
+    }
+
+    static SegmentoChamadas abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            // O mapeamento continua válido depois de fechar o canal
+            return new SegmentoChamadas(arquivo, canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Grava as chamadas num arquivo novo e força os dados para o disco.
+     */
+    static void gravar(Path arquivo, List<ArquivoChamadas.ChamadaArquivada> chamadas) throws IOException {
+        List<ArquivoChamadas.ChamadaArquivada> ordenadas = new ArrayList<>(chamadas);
+        ordenadas.sort(Comparator.comparing(ArquivoChamadas.ChamadaArquivada::dataHoraInicio)
+            .thenComparing(ArquivoChamadas.ChamadaArquivada::id));
+
+        Coluna[] colunas = new Coluna[COLUNAS];
+        for (int i = 0; i < COLUNAS; i++) {
+            colunas[i] = new Coluna();
+        }
+        long inicioAnterior = 0;
+        long idAnterior = 0;
+        for (ArquivoChamadas.ChamadaArquivada chamada : ordenadas) {
+            long inicio = micros(chamada.dataHoraInicio());
+            colunas[INICIO].escrever(inicio - inicioAnterior);
+            colunas[ID].escrever(zigzag(chamada.id() - idAnterior));
+            // 0 indica chamada sem data de fim
+            colunas[FIM].escrever(chamada.dataHoraFim() == null ? 0 : micros(chamada.dataHoraFim()) - inicio + 1);
+            colunas[TURMA].escrever(chamada.turmaId());
+            colunas[PROFESSOR].escrever(chamada.professorId());
+            long[] presentes = chamada.alunosIds();
+            colunas[PRESENTES].escrever(presentes.length);
+            long alunoAnterior = 0;
+            for (long alunoId : presentes) {
+                colunas[PRESENTES].escrever(alunoId - alunoAnterior);
+                alunoAnterior = alunoId;
+            }
+            inicioAnterior = inicio;
+            idAnterior = chamada.id();
+        }
+
+        int tamanho = CABECALHO;
+        for (Coluna coluna : colunas) {
+            tamanho += coluna.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        buffer.putInt(MAGICO).putInt(VERSAO).putInt(ordenadas.size());
+        buffer.putLong(ordenadas.isEmpty() ? 0 : micros(ordenadas.getFirst().dataHoraInicio()));
+        buffer.putLong(ordenadas.isEmpty() ? 0 : micros(ordenadas.getLast().dataHoraInicio()));
+        int posicao = CABECALHO;
+        for (Coluna coluna : colunas) {
+            buffer.putInt(posicao);
+            posicao += coluna.size();
+        }
+        buffer.putInt(tamanho);
+        for (Coluna coluna : colunas) {
+            buffer.put(coluna.bytes());
+        }
+        buffer.flip();
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+        }
+    }
+
+    Path getArquivo() {
+        return arquivo;
+    }
+
+    int getLinhas() {
+        return linhas;
+    }
+
+    long[] ids() {
+        long[] ids = new long[linhas];
+        Leitor leitor = new Leitor(posicoes[ID]);
+        long id = 0;
+        for (int i = 0; i < linhas; i++) {
+            id += unzigzag(leitor.ler());
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Chamadas com início em [inicio, fim]; limites nulos não restringem.
+     */
+    Stream<ArquivoChamadas.ChamadaArquivada> percorrer(LocalDateTime inicio, LocalDateTime fim) {
+        long de = inicio == null ? Long.MIN_VALUE : micros(inicio);
+        long ate = fim == null ? Long.MAX_VALUE : micros(fim);
+        if (linhas == 0 || de > maiorInicio || ate < menorInicio) {
+            return Stream.empty();
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Linhas(de, ate),
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Decodifica as colunas em paralelo, uma linha por vez
+    private final class Linhas implements Iterator<ArquivoChamadas.ChamadaArquivada> {
+
+        private final long ate;
+        private final Leitor inicios = new Leitor(posicoes[INICIO]);
+        private final Leitor ids = new Leitor(posicoes[ID]);
+        private final Leitor fins = new Leitor(posicoes[FIM]);
+        private final Leitor turmas = new Leitor(posicoes[TURMA]);
+        private final Leitor professores = new Leitor(posicoes[PROFESSOR]);
+        private final Leitor presentes = new Leitor(posicoes[PRESENTES]);
+        private int linha;
+        private long inicio;
+        private long id;
+        private ArquivoChamadas.ChamadaArquivada proxima;
+
+        private Linhas(long de, long ate) {
+            this.ate = ate;
+            avancar(de);
+        }
+
+        private void avancar(long de) {
+            proxima = null;
+            while (linha < linhas) {
+                linha++;
+                inicio += inicios.ler();
+                id += unzigzag(ids.ler());
+                long duracao = fins.ler();
+                long turmaId = turmas.ler();
+                long professorId = professores.ler();
+                int quantidade = (int) presentes.ler();
+                if (inicio > ate) {
+                    linha = linhas;
+                    return;
+                }
+                if (inicio < de) {
+                    for (int i = 0; i < quantidade; i++) {
+                        presentes.ler();
+                    }
+                    continue;
+                }
+                long[] alunosIds = new long[quantidade];
+                long alunoId = 0;
+                for (int i = 0; i < quantidade; i++) {
+                    alunoId += presentes.ler();
+                    alunosIds[i] = alunoId;
+                }
+                proxima = new ArquivoChamadas.ChamadaArquivada(id, turmaId, professorId, dataHora(inicio),
+                    duracao == 0 ? null : dataHora(inicio + duracao - 1), alunosIds);
+                return;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return proxima != null;
+        }
+
+        @Override
+        public ArquivoChamadas.ChamadaArquivada next() {
+            if (proxima == null) {
+                throw new NoSuchElementException();
+            }
+            ArquivoChamadas.ChamadaArquivada atual = proxima;
+            avancar(Long.MIN_VALUE);
+            return atual;
+        }
+    }
+
+    // Leitura de varints por posição absoluta: o buffer mapeado é compartilhado entre threads
+    private final class Leitor {
+
+        private int posicao;
+
+        private Leitor(int posicao) {
+            this.posicao = posicao;
+        }
+
+        private long ler() {
+            long valor = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados.get(posicao++);
+                valor |= (long) (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            return valor;
+        }
+    }
+
+    private static final class Coluna extends ByteArrayOutputStream {
+
+        private void escrever(long valor) {
+            while ((valor & ~0x7FL) != 0) {
+                write((int) ((valor & 0x7F) | 0x80));
+                valor >>>= 7;
+            }
+            write((int) valor);
+        }
+
+        private byte[] bytes() {
+            return buf.length == count ? buf : Arrays.copyOf(buf, count);
+        }
+    }
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unzigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    // Datas em microssegundos desde a época, sem fuso: o valor gravado é o mesmo do banco
+    private static long micros(LocalDateTime dataHora) {
+        return dataHora.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dataHora.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dataHora(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
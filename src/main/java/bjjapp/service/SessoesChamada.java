@@ -0,0 +1,318 @@
+package bjjapp.service;
+
+import bjjapp.controller.ChamadaAberta;
+import bjjapp.entity.Chamada;
+import bjjapp.entity.Professor;
+import bjjapp.entity.Turma;
+import bjjapp.repository.AlunoPresente;
+import bjjapp.repository.ChamadaRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessões em memória das chamadas abertas.
+ *
+ * Cada chamada aberta guarda o conjunto de presentes num mapa concorrente: marcações de tablets
+ * diferentes na mesma turma não se sobrescrevem e não carregam a chamada do banco. As alterações
+ * ficam pendentes e são gravadas em chamada_alunos em lotes periódicos (write-behind); a
+ * finalização grava o que faltar de forma síncrona, na própria transação.
+ *
+ * As sessões são reconstruídas a partir do banco na inicialização, e as pendências são gravadas
+ * no encerramento.
+ */
+@Slf4j
+@Component
+public class SessoesChamada {
+
+    private final ChamadaRepository chamadaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate leitura;
+
+    private final Map<Long, Sessao> sessoes = new ConcurrentHashMap<>();
+
+    public SessoesChamada(ChamadaRepository chamadaRepository, PlatformTransactionManager transactionManager) {
+        this.chamadaRepository = chamadaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+    }
+
+    /**
+     * Estado de uma chamada aberta. {@code pendentes} guarda a última operação de cada aluno
+     * ainda não gravada: true para inserir, false para remover.
+     */
+    public static final class Sessao {
+
+        private final Long id;
+        private final Turma turma;
+        private final Professor professor;
+        private final LocalDateTime dataHoraInicio;
+        private final Map<Long, AlunoPresente> presentes = new ConcurrentHashMap<>();
+        private final Map<Long, Boolean> pendentes = new ConcurrentHashMap<>();
+        private volatile boolean encerrada;
+
+        private Sessao(Chamada chamada, Collection<AlunoPresente> presentes) {
+            this.id = chamada.getId();
+            this.turma = chamada.getTurma();
+            this.professor = chamada.getProfessor();
+            this.dataHoraInicio = chamada.getDataHoraInicio();
+            presentes.forEach(aluno -> this.presentes.put(aluno.id(), aluno));
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public int getTotalPresentes() {
+            return presentes.size();
+        }
+
+        public boolean isPresente(Long alunoId) {
+            return presentes.containsKey(alunoId);
+        }
+
+        /**
+         * Marca o aluno. Devolve false se ele já estava presente.
+         *
+         * @throws IllegalStateException se a chamada foi finalizada
+         */
+        public boolean marcar(AlunoPresente aluno) {
+            boolean[] marcado = {false};
+            // compute torna atômicas, por aluno, a alteração do conjunto e a da pendência
+            presentes.compute(aluno.id(), (id, atual) -> {
+                if (atual == null) {
+                    pendentes.put(id, Boolean.TRUE);
+                    marcado[0] = true;
+                }
+                return aluno;
+            });
+            if (marcado[0]) {
+                confirmarAberta(aluno.id(), Boolean.TRUE, null, "Não é possível marcar presença em chamada finalizada");
+            } else if (encerrada) {
+                throw new IllegalStateException("Não é possível marcar presença em chamada finalizada");
+            }
+            return marcado[0];
+        }
+
+        /**
+         * Remove o aluno. Devolve false se ele não estava presente.
+         *
+         * @throws IllegalStateException se a chamada foi finalizada
+         */
+        public boolean remover(Long alunoId) {
+            AlunoPresente[] removido = {null};
+            presentes.computeIfPresent(alunoId, (id, atual) -> {
+                pendentes.put(id, Boolean.FALSE);
+                removido[0] = atual;
+                return null;
+            });
+            if (removido[0] != null) {
+                confirmarAberta(alunoId, Boolean.FALSE, removido[0], "Não é possível remover presença de chamada finalizada");
+            } else if (encerrada) {
+                throw new IllegalStateException("Não é possível remover presença de chamada finalizada");
+            }
+            return removido[0] != null;
+        }
+
+        /**
+         * Se a finalização começou durante a operação, desfaz a pendência e devolve o aluno ao
+         * estado {@code anterior} (null: ausente), para que um rollback da finalização reabra a
+         * sessão igual a chamada_alunos. Se a pendência já tinha sido levada pela finalização, a
+         * operação foi gravada e vale.
+         */
+        private void confirmarAberta(Long alunoId, Boolean operacao, AlunoPresente anterior, String mensagem) {
+            if (!encerrada) {
+                return;
+            }
+            boolean[] desfeita = {false};
+            // Dentro do compute do aluno, como as operações: nenhuma outra o altera no meio
+            presentes.compute(alunoId, (id, atual) -> {
+                if (!pendentes.remove(id, operacao)) {
+                    return atual;
+                }
+                desfeita[0] = true;
+                return anterior;
+            });
+            if (desfeita[0]) {
+                throw new IllegalStateException(mensagem);
+            }
+        }
+
+        /**
+         * Retira as pendências atuais. Uma pendência alterada depois da leitura fica para o próximo lote.
+         */
+        private Map<Long, Boolean> drenar() {
+            Map<Long, Boolean> lote = new HashMap<>();
+            for (Map.Entry<Long, Boolean> pendente : pendentes.entrySet()) {
+                if (pendentes.remove(pendente.getKey(), pendente.getValue())) {
+                    lote.put(pendente.getKey(), pendente.getValue());
+                }
+            }
+            return lote;
+        }
+
+        // Devolve um lote que não pôde ser gravado, sem sobrescrever operações mais novas
+        private void devolver(Map<Long, Boolean> lote) {
+            lote.forEach(pendentes::putIfAbsent);
+        }
+
+        public ChamadaAberta toChamadaAberta() {
+            List<AlunoPresente> alunos = new ArrayList<>(presentes.values());
+            alunos.sort(Comparator.comparing(AlunoPresente::nome, Comparator.nullsLast(String::compareToIgnoreCase)));
+            return new ChamadaAberta(id, turma, professor, dataHoraInicio, false, true, alunos, alunos.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        leitura.executeWithoutResult(status -> {
+            for (Chamada chamada : chamadaRepository.findSessoesAbertas()) {
+                sessoes.putIfAbsent(chamada.getId(), new Sessao(chamada, chamadaRepository.findAlunosPresentes(chamada.getId())));
+            }
+        });
+        log.info("Sessões de chamada reconstruídas: {} chamadas abertas", sessoes.size());
+    }
+
+    /**
+     * Abre a sessão de uma chamada recém-iniciada, quando a transação for commitada.
+     */
+    public void abrir(Chamada chamada) {
+        Sessao sessao = new Sessao(chamada, List.of());
+        depoisDoCommit(() -> sessoes.putIfAbsent(chamada.getId(), sessao));
+    }
+
+    /**
+     * Sessão de uma chamada aberta. Chamadas abertas que ainda não estão em memória são carregadas do banco.
+     *
+     * @throws IllegalArgumentException se a chamada não existir
+     * @throws IllegalStateException se a chamada estiver finalizada
+     */
+    public Sessao sessao(Long chamadaId, String mensagemFinalizada) {
+        Sessao sessao = sessoes.get(chamadaId);
+        if (sessao == null) {
+            Chamada chamada = leitura.execute(status -> chamadaRepository.findSessaoById(chamadaId)
+                .filter(Chamada::isAtivo)
+                .orElseThrow(() -> new IllegalArgumentException("Chamada não encontrada: " + chamadaId)));
+            if (chamada.getFinalizada()) {
+                throw new IllegalStateException(mensagemFinalizada);
+            }
+            List<AlunoPresente> presentes = leitura.execute(status -> chamadaRepository.findAlunosPresentes(chamadaId));
+            sessao = sessoes.computeIfAbsent(chamadaId, id -> new Sessao(chamada, presentes));
+        }
+        if (sessao.encerrada) {
+            throw new IllegalStateException(mensagemFinalizada);
+        }
+        return sessao;
+    }
+
+    public Optional<ChamadaAberta> findAberta(Long chamadaId) {
+        Sessao sessao = sessoes.get(chamadaId);
+        return sessao == null || sessao.encerrada ? Optional.empty() : Optional.of(sessao.toChamadaAberta());
+    }
+
+    public List<ChamadaAberta> abertas() {
+        return sessoes.values().stream()
+            .filter(sessao -> !sessao.encerrada)
+            .sorted(Comparator.comparing((Sessao sessao) -> sessao.id).reversed())
+            .map(Sessao::toChamadaAberta)
+            .toList();
+    }
+
+    /**
+     * Encerra a sessão e grava as pendências na transação atual. Deve ser chamado antes de qualquer
+     * leitura da transação, para que ela enxergue os lotes já gravados. A sessão sai do registro no
+     * commit; num rollback ela volta a aceitar marcações, com as pendências devolvidas.
+     */
+    public void finalizar(Long chamadaId) {
+        Sessao sessao = sessoes.get(chamadaId);
+        Map<Long, Boolean> lote = Map.of();
+        if (sessao != null) {
+            synchronized (sessao) {
+                sessao.encerrada = true;
+                lote = sessao.drenar();
+                gravar(chamadaId, lote);
+            }
+        }
+        Map<Long, Boolean> gravados = lote;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    sessoes.remove(chamadaId);
+                } else if (sessao != null) {
+                    sessao.devolver(gravados);
+                    sessao.encerrada = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Descarta a sessão de uma chamada excluída, quando a transação for commitada.
+     */
+    public void descartar(Long chamadaId) {
+        depoisDoCommit(() -> {
+            Sessao sessao = sessoes.remove(chamadaId);
+            if (sessao != null) {
+                sessao.encerrada = true;
+            }
+        });
+    }
+
+    // No encerramento grava o que ainda estiver pendente
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${bjjapp.chamadas.gravacao-ms:1000}")
+    public void gravarPendentes() {
+        for (Sessao sessao : sessoes.values()) {
+            synchronized (sessao) {
+                if (sessao.encerrada || sessao.pendentes.isEmpty()) {
+                    continue;
+                }
+                Map<Long, Boolean> lote = sessao.drenar();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> gravar(sessao.id, lote));
+                } catch (RuntimeException e) {
+                    sessao.devolver(lote);
+                    log.error("Falha ao gravar {} presenças da chamada {}; nova tentativa no próximo lote", lote.size(), sessao.id, e);
+                }
+            }
+        }
+    }
+
+    private void gravar(Long chamadaId, Map<Long, Boolean> lote) {
+        List<Long> inserir = new ArrayList<>();
+        List<Long> remover = new ArrayList<>();
+        lote.forEach((alunoId, presente) -> (presente ? inserir : remover).add(alunoId));
+        if (!inserir.isEmpty()) {
+            chamadaRepository.inserirPresencas(chamadaId, inserir);
+        }
+        if (!remover.isEmpty()) {
+            chamadaRepository.removerPresencas(chamadaId, remover);
+        }
+    }
+
+    private void depoisDoCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
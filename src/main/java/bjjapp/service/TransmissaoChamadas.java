@@ -0,0 +1,187 @@
+package bjjapp.service;
+
+import bjjapp.controller.ChamadaAberta;
+import bjjapp.repository.AlunoPresente;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Eventos ao vivo das chamadas abertas via Server-Sent Events.
+ *
+ * A conexão fica com o suporte assíncrono do servlet e cada inscrito tem uma fila própria,
+ * esvaziada por uma virtual thread: inscritos ociosos não prendem threads da plataforma e um
+ * cliente lento não atrasa os demais. O primeiro evento é o estado completo da chamada; os
+ * seguintes são deltas idempotentes, publicados depois do commit da alteração.
+ */
+@Slf4j
+@Component
+public class TransmissaoChamadas {
+
+    private static final int CAPACIDADE_FILA = 256;
+    private static final long HEARTBEAT_MS = 20_000;
+
+    public record PresencasMarcadas(Long chamadaId, List<AlunoPresente> alunos, int totalPresentes) {
+    }
+
+    public record PresencaRemovida(Long chamadaId, Long alunoId, int totalPresentes) {
+    }
+
+    public record ChamadaEncerrada(Long chamadaId, LocalDateTime dataHoraFim) {
+    }
+
+    private record Evento(String nome, Object dados, boolean ultimo) {
+    }
+
+    @Value("${bjjapp.chamadas.stream-timeout-ms:3600000}")
+    private long timeoutMs;
+
+    private final Map<Long, Set<Inscrito>> inscritos = new ConcurrentHashMap<>();
+
+    private final class Inscrito {
+
+        private final Long chamadaId;
+        private final SseEmitter emitter;
+        private final BlockingDeque<Evento> fila = new LinkedBlockingDeque<>(CAPACIDADE_FILA);
+        private volatile Thread escritor;
+
+        private Inscrito(Long chamadaId, SseEmitter emitter) {
+            this.chamadaId = chamadaId;
+            this.emitter = emitter;
+        }
+
+        private void publicar(Evento evento) {
+            if (!fila.offer(evento)) {
+                // Cliente que não acompanha o ritmo é desconectado e reconecta com o estado completo
+                log.warn("Inscrito da chamada {} não acompanhou os eventos; encerrando a conexão", chamadaId);
+                encerrar();
+                emitter.complete();
+            }
+        }
+
+        private void escrever() {
+            try {
+                while (true) {
+                    Evento evento = fila.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                    if (evento == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                        continue;
+                    }
+                    emitter.send(SseEmitter.event().name(evento.nome()).data(evento.dados(), MediaType.APPLICATION_JSON));
+                    if (evento.ultimo()) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectou
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                remover(this);
+            }
+        }
+
+        private void encerrar() {
+            remover(this);
+            Thread thread = escritor;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Inscreve um cliente na chamada. O estado inicial é calculado depois da inscrição, então
+     * nenhuma alteração fica de fora; as que chegarem em dobro são idempotentes.
+     */
+    public SseEmitter inscrever(Long chamadaId, Supplier<ChamadaAberta> estado) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Inscrito inscrito = new Inscrito(chamadaId, emitter);
+        emitter.onCompletion(inscrito::encerrar);
+        emitter.onTimeout(inscrito::encerrar);
+        emitter.onError(e -> inscrito.encerrar());
+
+        inscritos.compute(chamadaId, (id, daChamada) -> {
+            Set<Inscrito> atualizados = daChamada != null ? daChamada : ConcurrentHashMap.newKeySet();
+            atualizados.add(inscrito);
+            return atualizados;
+        });
+        inscrito.fila.offerFirst(new Evento("estado", estado.get(), false));
+        inscrito.escritor = Thread.ofVirtual().name("chamada-stream-" + chamadaId).start(inscrito::escrever);
+        return emitter;
+    }
+
+    public void presencasMarcadas(Long chamadaId, List<AlunoPresente> alunos, int totalPresentes) {
+        if (!alunos.isEmpty()) {
+            publicarDepoisDoCommit(chamadaId, new Evento("presencas-marcadas",
+                new PresencasMarcadas(chamadaId, alunos, totalPresentes), false));
+        }
+    }
+
+    public void presencaRemovida(Long chamadaId, Long alunoId, int totalPresentes) {
+        publicarDepoisDoCommit(chamadaId, new Evento("presenca-removida",
+            new PresencaRemovida(chamadaId, alunoId, totalPresentes), false));
+    }
+
+    // Último evento da chamada: os inscritos são desconectados em seguida
+    public void chamadaFinalizada(Long chamadaId, LocalDateTime dataHoraFim) {
+        publicarDepoisDoCommit(chamadaId, new Evento("chamada-finalizada", new ChamadaEncerrada(chamadaId, dataHoraFim), true));
+    }
+
+    public void chamadaExcluida(Long chamadaId) {
+        publicarDepoisDoCommit(chamadaId, new Evento("chamada-excluida", new ChamadaEncerrada(chamadaId, null), true));
+    }
+
+    private void publicarDepoisDoCommit(Long chamadaId, Evento evento) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicar(chamadaId, evento);
+                }
+            });
+        } else {
+            publicar(chamadaId, evento);
+        }
+    }
+
+    private void publicar(Long chamadaId, Evento evento) {
+        Set<Inscrito> daChamada = inscritos.get(chamadaId);
+        if (daChamada != null) {
+            daChamada.forEach(inscrito -> inscrito.publicar(evento));
+        }
+    }
+
+    private void remover(Inscrito inscrito) {
+        inscritos.computeIfPresent(inscrito.chamadaId, (id, daChamada) -> {
+            daChamada.remove(inscrito);
+            return daChamada.isEmpty() ? null : daChamada;
+        });
+    }
+
+    @PreDestroy
+    void encerrar() {
+        inscritos.values().forEach(daChamada -> daChamada.forEach(inscrito -> {
+            inscrito.encerrar();
+            inscrito.emitter.complete();
+        }));
+    }
+}
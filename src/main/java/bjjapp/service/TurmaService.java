@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -19,6 +20,19 @@ import java.util.Set;
 public class TurmaService {
 
     private final TurmaRepository turmaRepository;
+    private final ConsultaCampos consultaCampos;
+
+    // Campos aceitos em ?fields=
+    private static final ConsultaCampos.Recurso<Turma> CAMPOS = ConsultaCampos.Recurso.de(Turma.class)
+        .coluna("nome")
+        .coluna("modalidade")
+        .coluna("horario")
+        .coluna("ativo")
+        .coluna("versao")
+        .lista("dias", "select t.id, d from Turma t join t.dias d where t.id in :ids order by d", linha -> linha[0])
+        .lista("alunos",
+            "select t.id, a.id, a.nome, a.faixa, a.grau from Turma t join t.alunos a where t.id in :ids order by a.nome",
+            ConsultaCampos.item("id", "nome", "faixa", "grau"));
 
     public Turma save(Turma turma, Set<DiaSemana> dias) {
         // Verificar se já existe turma ativa com mesma modalidade e horário (regra: somente uma ativa por modalidade e horário)
@@ -43,9 +57,33 @@ public class TurmaService {
         return turmaRepository.findByAtivoTrue();
     }
 
+    // Muda sempre que a lista de findAll mudaria: turmas, dias ou alunos (e os dados deles)
+    @Transactional(readOnly = true)
+    public String getEtagLista() {
+        return "turmas-" + turmaRepository.findVersaoAtivas().etag() + "-" + turmaRepository.findVersaoAlunosAtivas().etag();
+    }
+
+    /**
+     * @throws IllegalArgumentException se algum campo não existir
+     */
+    public Set<String> campos(String fields) {
+        return CAMPOS.campos(fields);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAll(Set<String> campos) {
+        return consultaCampos.listar(CAMPOS, campos, Map.of("ativo", true), false, null, null);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> findById(Long id, Set<String> campos) {
+        return consultaCampos.buscar(CAMPOS, campos, id)
+            .orElseThrow(() -> new IllegalArgumentException("Turma não encontrada: " + id));
+    }
+
     @Transactional(readOnly = true)
     public Turma findById(Long id) {
-        return turmaRepository.findById(id)
+        return turmaRepository.findRosterById(id)
             .orElseThrow(() -> new IllegalArgumentException("Turma não encontrada: " + id));
     }
 
@@ -1,11 +1,15 @@
 package bjjapp.service;
 
+import bjjapp.controller.CursorPage;
+import bjjapp.controller.PaginaHistorico;
 import bjjapp.entity.UserHistorico;
 import bjjapp.entity.User;
 import bjjapp.entity.Professor;
 import bjjapp.enums.TipoAlteracao;
+import bjjapp.repository.EventoHistorico;
 import bjjapp.repository.UserHistoricoRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,11 +22,24 @@ import java.util.List;
 public class UserHistoricoService {
 
     private final UserHistoricoRepository historicoRepository;
+    private final HistoricoWriter historicoWriter;
 
     public UserHistorico save(UserHistorico historico) {
         return historicoRepository.save(historico);
     }
 
+    public List<UserHistorico> saveAll(List<UserHistorico> historicos) {
+        return historicoRepository.saveAll(historicos);
+    }
+
+    /**
+     * Registra entradas de histórico conforme bjjapp.historico.durabilidade
+     * (na transação atual ou em segundo plano após o commit).
+     */
+    public void registrar(List<UserHistorico> historicos) {
+        historicoWriter.registrar(historicos);
+    }
+
     public void registrarHistorico(User user, TipoAlteracao tipoAlteracao, String descricao) {
         UserHistorico historico = UserHistorico.builder()
             .user(user)
@@ -30,7 +47,7 @@ public class UserHistoricoService {
             .descricao(descricao)
             .dataHoraAlteracao(LocalDateTime.now())
             .build();
-        save(historico);
+        registrar(List.of(historico));
     }
 
     public void registrarHistoricoProfessor(Professor professor, TipoAlteracao tipoAlteracao, String descricao) {
@@ -46,6 +63,51 @@ public class UserHistoricoService {
         return historicoRepository.findByUserOrderByDataHoraAlteracaoDesc(user);
     }
 
+    /**
+     * Histórico do usuário, mais recentes primeiro, paginado por (dataHoraAlteracao, id).
+     *
+     * @param after id da última entrada da página anterior, ou null para a primeira página
+     * @throws IllegalArgumentException se o cursor não for uma entrada do usuário
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserHistorico> getHistorico(Long userId, Long after, int limit) {
+        LocalDateTime antesDe = FIM_PADRAO;
+        Long antesId = Long.MAX_VALUE;
+        if (after != null) {
+            antesDe = historicoRepository.findDataHoraAlteracao(userId, after)
+                .orElseThrow(() -> new IllegalArgumentException("Cursor inválido: " + after));
+            antesId = after;
+        }
+        List<UserHistorico> historico = historicoRepository.findPaginaByUserId(userId, antesDe, antesId, Limit.of(limit + 1));
+        return CursorPage.of(historico, limit, UserHistorico::getId);
+    }
+
+    // Limites usados quando o período ou o cursor não são informados (dentro da faixa do DATETIME do MySQL)
+    private static final LocalDateTime INICIO_PADRAO = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime FIM_PADRAO = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    /**
+     * Linha do tempo do usuário, mais recentes primeiro, com filtro opcional por tipo e por período
+     * (limites inclusivos).
+     *
+     * @param cursor posição do nextCursor da página anterior, ou null para a primeira página
+     */
+    @Transactional(readOnly = true)
+    public PaginaHistorico getLinhaDoTempo(Long userId, TipoAlteracao tipo, LocalDateTime inicio, LocalDateTime fim,
+                                           PaginaHistorico.Cursor cursor, int limit) {
+        LocalDateTime antesDe = fim != null ? fim : FIM_PADRAO;
+        Long antesId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.dataHoraAlteracao().isAfter(antesDe)) {
+            antesDe = cursor.dataHoraAlteracao();
+            antesId = cursor.id();
+        }
+        LocalDateTime desde = inicio != null ? inicio : INICIO_PADRAO;
+        List<EventoHistorico> eventos = tipo == null
+            ? historicoRepository.findLinhaDoTempo(userId, desde, antesDe, antesId, Limit.of(limit + 1))
+            : historicoRepository.findLinhaDoTempoByTipo(userId, tipo, desde, antesDe, antesId, Limit.of(limit + 1));
+        return PaginaHistorico.of(eventos, limit);
+    }
+
     @Transactional(readOnly = true)
     public List<UserHistorico> findByUserId(Long userId) {
         return historicoRepository.findByUserIdOrderByDataHoraAlteracaoDesc(userId);
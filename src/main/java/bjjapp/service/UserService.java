@@ -7,17 +7,27 @@ import bjjapp.entity.UserPlainPassword;
 import bjjapp.enums.Faixa;
 import bjjapp.enums.Role;
 import bjjapp.enums.TipoAlteracao;
+import bjjapp.repository.AptoGraduacao;
+import bjjapp.repository.ContagemFaixa;
 import bjjapp.repository.UserRepository;
 import bjjapp.repository.TurmaRepository;
 import bjjapp.repository.UserPlainPasswordRepository;
+import bjjapp.repository.VersaoIdade;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import bjjapp.controller.CursorPage;
+import bjjapp.controller.PaginaHistorico;
 import bjjapp.controller.UserCreationResponse;
 import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -35,41 +45,80 @@ public class UserService {
     private final TurmaRepository turmaRepository;
     private final UserHistoricoService historicoService;
     private final RequisitosGraduacaoService requisitosService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UsernameAllocator usernameAllocator;
+    private final EstatisticasFaixas estatisticasFaixas;
     private final UserPlainPasswordRepository userPlainPasswordRepository;
+    private final ConsultaCampos consultaCampos;
+
+    // Campos aceitos em ?fields=; senha e credenciais não são selecionáveis
+    private static final ConsultaCampos.Recurso<User> CAMPOS = ConsultaCampos.Recurso.de(User.class)
+        .coluna("nome")
+        .calculado("idade", linha -> linha[0] != null ? linha[0]
+            : linha[1] != null ? Period.between((LocalDate) linha[1], LocalDate.now()).getYears() : null,
+            "idade", "dataNascimento")
+        .coluna("dataNascimento")
+        .coluna("faixa")
+        .coluna("grau")
+        .coluna("username")
+        .coluna("role")
+        .coluna("nomeResponsavel")
+        .coluna("whatsappResponsavel")
+        .coluna("telefoneContato")
+        .coluna("dataInicioPratica")
+        .coluna("dataUltimaGraduacao")
+        .coluna("aulasAcumuladas")
+        .coluna("aulasDesdeUltimaGraduacao")
+        .coluna("ultimaGraduacao")
+        .coluna("criteriosConcluidos")
+        .coluna("ativo")
+        .coluna("versao")
+        .lista("turmas",
+            "select u.id, t.id, t.nome, t.modalidade, t.horario from User u join u.turmas t where u.id in :ids order by t.id",
+            ConsultaCampos.item("id", "nome", "modalidade", "horario"));
 
     public User save(User user) {
         if (user.getNome() == null || user.getNome().isBlank()) {
             throw new IllegalArgumentException("Nome é obrigatório");
         }
+        boolean novo = user.getId() == null;
 
         // Gerar credenciais automaticamente para novos usuários
-        if (user.getId() == null && user.getUsername() == null) {
-            String username = generateUsername(user.getNome());
+        boolean credenciaisGeradas = novo && user.getUsername() == null;
+        if (credenciaisGeradas) {
+            String username = usernameAllocator.alocar(user.getNome());
             String rawPassword = generatePassword();
             user.setUsername(username);
-            user.setPassword(passwordEncoder.encode(rawPassword));
+            user.setPassword(passwordHashingService.encode(rawPassword));
             user.setPlainPassword(rawPassword);
             // Role padrão é ALUNO, pode ser alterado para PROFESSOR via endpoint específico
         }
 
-        User saved = userRepository.save(user);
+        User saved;
+        try {
+            // Novos usuários são gravados na hora para que um username duplicado apareça aqui, e não no commit
+            saved = novo ? userRepository.saveAndFlush(user) : userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!novo) {
+                throw e;
+            }
+            // Username já usado por um cadastro concorrente: a base é relida no próximo cadastro
+            usernameAllocator.invalidar(user.getNome());
+            // A transação será desfeita; sem o id gerado, uma nova tentativa volta a inserir o usuário
+            user.setId(null);
+            if (credenciaisGeradas) {
+                user.setUsername(null);
+            }
+            throw new UsernameEmUsoException(user.getUsername());
+        }
+        if (novo) {
+            estatisticasFaixas.registrar(null, EstatisticasFaixas.Chave.of(saved));
+        }
         historicoService.registrarHistorico(saved, TipoAlteracao.CADASTRO, "Usuário cadastrado");
         return saved;
     }
 
-    private String generateUsername(String nome) {
-        String baseUsername = nome.toLowerCase().replace(" ", ".");
-        String username = baseUsername;
-        int counter = 1;
-        while (userRepository.existsByUsername(username)) {
-            username = baseUsername + counter;
-            counter++;
-        }
-        return username;
-    }
-
-    private String generatePassword() {
+    static String generatePassword() {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         SecureRandom random = new SecureRandom();
         StringBuilder sb = new StringBuilder(8);
@@ -83,11 +132,7 @@ public class UserService {
         // 1. Salva o usuário sem turmas para garantir o ID
         Set<Turma> turmas = new HashSet<>();
         if (turmasIds != null && !turmasIds.isEmpty()) {
-            turmas = turmasIds.stream()
-                .map(turmaRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
+            turmas = new HashSet<>(turmaRepository.findResumoByIdIn(turmasIds));
         }
         user.setTurmas(new HashSet<>()); // Temporariamente vazio
         User saved = save(user); // Garante que o usuário tenha ID
@@ -104,14 +149,42 @@ public class UserService {
     }
 
     public List<User> findAll() {
-        return userRepository.findAllByAtivoTrue().stream()
-                .filter(user -> user.getRole() == Role.ALUNO)
-                .collect(Collectors.toList());
+        return userRepository.findByRoleAndAtivoTrue(Role.ALUNO);
+    }
+
+    public CursorPage<User> findAll(Long after, int limit) {
+        List<Long> ids = userRepository.findIdsByRoleAndAtivoTrueAfter(
+            Role.ALUNO, after != null ? after : 0L, Limit.of(limit + 1));
+        CursorPage<Long> pagina = CursorPage.of(ids, limit, id -> id);
+        List<User> users = pagina.items().isEmpty()
+            ? List.of()
+            : userRepository.findDetalheByIdIn(pagina.items(), Sort.by("id"));
+        return new CursorPage<>(users, pagina.nextCursor());
+    }
+
+    /**
+     * @throws IllegalArgumentException se algum campo não existir
+     */
+    public Set<String> campos(String fields) {
+        return CAMPOS.campos(fields);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> findAll(Set<String> campos, Long after, int limit) {
+        List<Map<String, Object>> linhas = consultaCampos.listar(
+            CAMPOS, campos, Map.of("role", Role.ALUNO, "ativo", true), false, after, limit + 1);
+        return CursorPage.of(linhas, limit, linha -> (Long) linha.get("id"));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> findById(Long id, Set<String> campos) {
+        return consultaCampos.buscar(CAMPOS, campos, id)
+            .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado: " + id));
     }
 
     public User findById(Long id) {
         log.info("Buscando usuário por ID: {}", id);
-        return userRepository.findById(id)
+        return userRepository.findDetalheById(id)
             .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado: " + id));
     }
 
@@ -127,14 +200,16 @@ public class UserService {
         return userRepository.findByTurmaIdAndAtivoTrue(turmaId);
     }
 
-    public List<User> findAptosParaGraduacao() {
-        return userRepository.findAllByAtivoTrue().stream()
-            .filter(User::isAptoParaGraduacao)
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<AptoGraduacao> findAptosParaGraduacao(Faixa faixa, Long turmaId, Long after, int limit) {
+        List<AptoGraduacao> aptos = userRepository.findAptosParaGraduacao(
+            faixa, turmaId, after != null ? after : 0L, Limit.of(limit + 1));
+        return CursorPage.of(aptos, limit, AptoGraduacao::id);
     }
 
     public User update(Long id, User user) {
         User existing = findById(id);
+        EstatisticasFaixas.Chave antes = EstatisticasFaixas.Chave.of(existing);
         existing.setNome(user.getNome());
         existing.setIdade(user.getIdade());
         existing.setDataNascimento(user.getDataNascimento());
@@ -166,12 +241,14 @@ public class UserService {
         existing.setTurmas(turmasNovas);
 
         User updated = userRepository.save(existing);
+        estatisticasFaixas.registrar(antes, EstatisticasFaixas.Chave.of(updated));
         historicoService.registrarHistorico(updated, TipoAlteracao.ATUALIZACAO, "Dados atualizados");
         return updated;
     }
 
     public User update(Long id, User user, Set<Long> turmasIds) {
         User existing = findById(id);
+        EstatisticasFaixas.Chave antes = EstatisticasFaixas.Chave.of(existing);
         existing.setNome(user.getNome());
         existing.setIdade(user.getIdade());
         existing.setDataNascimento(user.getDataNascimento());
@@ -188,11 +265,7 @@ public class UserService {
         Set<Turma> turmasAntigas = new HashSet<>(existing.getTurmas());
         Set<Turma> turmasNovas = new HashSet<>();
         if (turmasIds != null && !turmasIds.isEmpty()) {
-            turmasNovas = turmasIds.stream()
-                .map(turmaRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
+            turmasNovas = new HashSet<>(turmaRepository.findResumoByIdIn(turmasIds));
         }
         // Remover o usuário das turmas antigas que não estão mais presentes
         for (Turma turma : turmasAntigas) {
@@ -209,6 +282,7 @@ public class UserService {
         existing.setTurmas(turmasNovas);
 
         User updated = userRepository.save(existing);
+        estatisticasFaixas.registrar(antes, EstatisticasFaixas.Chave.of(updated));
         historicoService.registrarHistorico(updated, TipoAlteracao.ATUALIZACAO, "Dados atualizados");
         return updated;
     }
@@ -228,8 +302,25 @@ public class UserService {
     public void delete(Long id) {
         User user = findById(id);
         historicoService.registrarHistorico(user, TipoAlteracao.DESATIVACAO, "Usuário desativado");
+        EstatisticasFaixas.Chave antes = EstatisticasFaixas.Chave.of(user);
         user.setAtivo(false);
         userRepository.save(user);
+        estatisticasFaixas.registrar(antes, null);
+    }
+
+    public long getVersao(Long id) {
+        return userRepository.findVersaoById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado: " + id));
+    }
+
+    /**
+     * Versão do usuário e idade de hoje: a idade calculada pela data de nascimento muda sem que
+     * o registro mude, e com ela a próxima faixa e os requisitos.
+     */
+    public String getVersaoEIdade(Long id) {
+        VersaoIdade versao = userRepository.findVersaoIdadeById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado: " + id));
+        return versao.versao() + "-" + versao.idadeAtual();
     }
 
     public Map<String, Object> getStatus(Long id) {
@@ -256,8 +347,10 @@ public class UserService {
 
     public User concederGrau(Long id) {
         User user = findById(id);
+        EstatisticasFaixas.Chave antes = EstatisticasFaixas.Chave.of(user);
         user.concederGrau();
         User saved = userRepository.save(user);
+        estatisticasFaixas.registrar(antes, EstatisticasFaixas.Chave.of(saved));
         historicoService.registrarHistorico(saved, TipoAlteracao.GRAU, "Grau concedido: " + saved.getGrau());
         return saved;
     }
@@ -265,30 +358,48 @@ public class UserService {
     public User trocarFaixa(Long id, String novaFaixa) {
         User user = findById(id);
         Faixa faixa = Faixa.valueOf(novaFaixa.toUpperCase());
+        EstatisticasFaixas.Chave antes = EstatisticasFaixas.Chave.of(user);
         user.trocarFaixa(faixa);
         User saved = userRepository.save(user);
+        estatisticasFaixas.registrar(antes, EstatisticasFaixas.Chave.of(saved));
         historicoService.registrarHistorico(saved, TipoAlteracao.FAIXA, "Faixa trocada para: " + saved.getFaixa());
         return saved;
     }
 
     public List<UserHistorico> getHistorico(Long id) {
-        User user = findById(id);
-        return historicoService.getHistorico(user);
+        if (!userRepository.existsById(id)) {
+            throw new IllegalArgumentException("Usuário não encontrado: " + id);
+        }
+        return historicoService.findByUserId(id);
+    }
+
+    public CursorPage<UserHistorico> getHistorico(Long id, Long after, int limit) {
+        if (!userRepository.existsById(id)) {
+            throw new IllegalArgumentException("Usuário não encontrado: " + id);
+        }
+        return historicoService.getHistorico(id, after, limit);
+    }
+
+    public PaginaHistorico getLinhaDoTempo(Long id, TipoAlteracao tipo, LocalDateTime inicio, LocalDateTime fim,
+                                           PaginaHistorico.Cursor cursor, int limit) {
+        if (!userRepository.existsById(id)) {
+            throw new IllegalArgumentException("Usuário não encontrado: " + id);
+        }
+        return historicoService.getLinhaDoTempo(id, tipo, inicio, fim, cursor, limit);
     }
 
     public Map<String, Long> getEstatisticasFaixas() {
-        List<User> users = userRepository.findAllByAtivoTrue();
-        return users.stream()
-            .collect(Collectors.groupingBy(
-                user -> user.getFaixa().name(),
-                Collectors.counting()
-            ));
+        return estatisticasFaixas.porFaixa();
     }
 
-    public User updateCriterios(Long id, Set<Integer> criterios) {
-        User user = findById(id);
-        user.setCriteriosConcluidos(criterios);
-        return userRepository.save(user);
+    public List<ContagemFaixa> getEstatisticasFaixasDetalhadas() {
+        return estatisticasFaixas.detalhado();
+    }
+
+    public void updateCriterios(Long id, Set<Integer> criterios) {
+        if (userRepository.updateCriteriosConcluidos(id, criterios) == 0) {
+            throw new IllegalArgumentException("Usuário não encontrado: " + id);
+        }
     }
 
     // Métodos para autenticação
@@ -301,12 +412,12 @@ public class UserService {
     }
 
     public List<User> findByUsername(String username) {
-        Optional<User> user = userRepository.findByUsername(username);
+        Optional<User> user = userRepository.findDetalheByUsername(username);
         return user.map(List::of).orElse(List.of());
     }
 
     public boolean checkPassword(String rawPassword, String encodedPassword) {
-        return passwordEncoder.matches(rawPassword, encodedPassword);
+        return passwordHashingService.matches(rawPassword, encodedPassword);
     }
 
     public User createProfessor(String nome) {
@@ -330,7 +441,7 @@ public class UserService {
                 String newPassword = generatePassword();
                 credenciais.setPlainPassword(newPassword);
                 // Atualizar a senha hashada do usuário também
-                user.setPassword(passwordEncoder.encode(newPassword));
+                user.setPassword(passwordHashingService.encode(newPassword));
                 userRepository.save(user);
                 userPlainPasswordRepository.save(credenciais);
             }
@@ -346,10 +457,10 @@ public class UserService {
         String rawPassword;
         boolean novoUsuario = user.getId() == null;
         if (novoUsuario) {
-            username = generateUsername(user.getNome());
+            username = usernameAllocator.alocar(user.getNome());
             user.setUsername(username);
             rawPassword = generatePassword();
-            user.setPassword(passwordEncoder.encode(rawPassword));
+            user.setPassword(passwordHashingService.encode(rawPassword));
             user.setPlainPassword(rawPassword);
         } else {
             username = user.getUsername();
@@ -357,7 +468,7 @@ public class UserService {
             UserPlainPassword credenciaisExistente = userPlainPasswordRepository.findByUserId(user.getId());
             if (credenciaisExistente == null) {
                 rawPassword = generatePassword();
-                user.setPassword(passwordEncoder.encode(rawPassword));
+                user.setPassword(passwordHashingService.encode(rawPassword));
                 user.setPlainPassword(rawPassword);
             } else {
                 rawPassword = credenciaisExistente.getPlainPassword();
@@ -0,0 +1,59 @@
+package bjjapp.service;
+
+import bjjapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gera usernames no formato "nome.sobrenome", "nome.sobrenome1", "nome.sobrenome2"...
+ *
+ * Na primeira vez que uma base aparece, o maior sufixo em uso é lido com uma única consulta por
+ * prefixo; daí em diante o próximo sufixo sai de um contador em memória, sem ida ao banco e sem
+ * corrida entre cadastros simultâneos. Se o insert ainda assim violar a unicidade (username
+ * criado por outra instância), a base é descartada com {@link #invalidar} e relida na próxima vez.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsernameAllocator {
+
+    private final UserRepository userRepository;
+
+    // Base do username -> próximo sufixo livre (0 = a própria base)
+    private final Map<String, AtomicInteger> proximoSufixo = new ConcurrentHashMap<>();
+
+    public String alocar(String nome) {
+        String base = base(nome);
+        int sufixo = proximoSufixo.computeIfAbsent(base, b -> new AtomicInteger(proximoSufixoNoBanco(b)))
+            .getAndIncrement();
+        return sufixo == 0 ? base : base + sufixo;
+    }
+
+    public void invalidar(String nome) {
+        proximoSufixo.remove(base(nome));
+    }
+
+    private static String base(String nome) {
+        return nome.toLowerCase().replace(" ", ".");
+    }
+
+    private int proximoSufixoNoBanco(String base) {
+        String prefixo = base.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        List<String> existentes = userRepository.findUsernamesByPrefixo(prefixo);
+
+        int proximo = 0;
+        for (String username : existentes) {
+            String resto = username.substring(base.length());
+            if (resto.isEmpty()) {
+                proximo = Math.max(proximo, 1);
+            } else if (resto.chars().allMatch(Character::isDigit) && resto.length() < 10) {
+                proximo = Math.max(proximo, Integer.parseInt(resto) + 1);
+            }
+        }
+        return proximo;
+    }
+}
@@ -0,0 +1,12 @@
+package bjjapp.service;
+
+/**
+ * O username gerado foi gravado por outro cadastro entre a alocação e o insert.
+ * Repetir a operação gera um novo username.
+ */
+public class UsernameEmUsoException extends IllegalStateException {
+
+    public UsernameEmUsoException(String username) {
+        super("Username já está em uso: " + username);
+    }
+}
@@ -0,0 +1,36 @@
+-- Cria e sincroniza as linhas dos geradores de id (tabela id_generators, otimizador pooled-lo,
+-- ver GeradorIdEmTabela) com os ids já existentes nas tabelas que usavam AUTO_INCREMENT. O
+-- Hibernate não insere essas linhas; elas vêm só daqui.
+--
+-- Roda a cada inicialização, em todos os ambientes (spring.sql.init.mode=always), antes de a
+-- aplicação atender requisições. É idempotente: só insere a linha que falta e só avança next_val
+-- quando ele ainda não está acima do maior id da tabela. Custa um MAX(id) por tabela, pelo índice
+-- da chave primária.
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'chamadas', proximo FROM (SELECT COALESCE(MAX(id), 0) + 1 AS proximo FROM chamadas) ids
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'chamadas');
+
+UPDATE id_generators SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM chamadas)
+WHERE sequence_name = 'chamadas' AND next_val <= (SELECT COALESCE(MAX(id), 0) FROM chamadas);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'user_historico', proximo FROM (SELECT COALESCE(MAX(id), 0) + 1 AS proximo FROM user_historico) ids
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'user_historico');
+
+UPDATE id_generators SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM user_historico)
+WHERE sequence_name = 'user_historico' AND next_val <= (SELECT COALESCE(MAX(id), 0) FROM user_historico);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'user_plain_password', proximo FROM (SELECT COALESCE(MAX(id), 0) + 1 AS proximo FROM user_plain_password) ids
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'user_plain_password');
+
+UPDATE id_generators SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM user_plain_password)
+WHERE sequence_name = 'user_plain_password' AND next_val <= (SELECT COALESCE(MAX(id), 0) FROM user_plain_password);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'users', proximo FROM (SELECT COALESCE(MAX(id), 0) + 1 AS proximo FROM users) ids
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'users');
+
+UPDATE id_generators SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM users)
+WHERE sequence_name = 'users' AND next_val <= (SELECT COALESCE(MAX(id), 0) FROM users);
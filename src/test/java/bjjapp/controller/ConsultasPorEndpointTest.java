@@ -0,0 +1,99 @@
+package bjjapp.controller;
+
+import bjjapp.config.JwtUtil;
+import bjjapp.service.ChamadaService;
+import bjjapp.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static bjjapp.service.ChamadasDeTeste.finalizada;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Quantidade de comandos SQL por endpoint de leitura, com o cache de segundo nível vazio. Cada
+ * endpoint é chamado com os dados iniciais e de novo depois de a turma e as chamadas crescerem:
+ * a contagem não pode mudar com a quantidade de linhas.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasPorEndpointTest {
+
+    private static final Long TURMA = 2L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChamadaService chamadaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String token;
+
+    private Long chamada;
+
+    @BeforeAll
+    void preparar() {
+        token = jwtUtil.generateToken("admin", "ADMIN");
+        userService.updateTurmas(2L, Set.of(TURMA));
+        chamada = finalizada(chamadaService, TURMA, 2L);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        // Listas paginadas: ids da página e depois as linhas com as associações num único join
+        "/users/findAll, 2",
+        "/users/findById/2, 1",
+        // Duas consultas de versão para o ETag e a lista com dias e alunos
+        "/turmas/findAll, 3",
+        "/turmas/findById/2, 1",
+        "/chamadas/findAll, 2",
+        "/chamadas/findById/{chamada}, 1",
+        "/chamadas/turma/2, 2",
+        // Ids e linhas da página, situação do aluno e total de presenças nos agregados
+        "/chamadas/aluno/2, 4",
+    })
+    void quantidadeFixaDeComandos(String endpoint, long esperado) throws Exception {
+        String url = endpoint.replace("{chamada}", chamada.toString());
+        assertEquals(esperado, comandos(url), endpoint);
+
+        for (long alunoId = 3; alunoId <= 6; alunoId++) {
+            userService.updateTurmas(alunoId, Set.of(TURMA));
+        }
+        finalizada(chamadaService, TURMA, 2L, 3L, 4L);
+        finalizada(chamadaService, TURMA, 5L, 6L);
+        assertEquals(esperado, comandos(url), endpoint);
+    }
+
+    private long comandos(String url) throws Exception {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(url).header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
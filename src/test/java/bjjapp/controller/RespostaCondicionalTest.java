@@ -0,0 +1,55 @@
+package bjjapp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RespostaCondicionalTest {
+
+    @Test
+    void aceitaGzipListadoSemQ() {
+        assertTrue(RespostaCondicional.aceitaGzip("gzip, deflate, br"));
+        assertTrue(RespostaCondicional.aceitaGzip("GZIP"));
+        assertTrue(RespostaCondicional.aceitaGzip("deflate;q=1.0, gzip;q=0.5"));
+    }
+
+    @Test
+    void recusaGzipComQZero() {
+        assertFalse(RespostaCondicional.aceitaGzip("gzip;q=0"));
+        assertFalse(RespostaCondicional.aceitaGzip("gzip; q=0.000, deflate"));
+        assertFalse(RespostaCondicional.aceitaGzip("*, gzip;q=0"));
+    }
+
+    @Test
+    void usaCuringaQuandoGzipNaoEstaListado() {
+        assertTrue(RespostaCondicional.aceitaGzip("br, *;q=0.1"));
+        assertFalse(RespostaCondicional.aceitaGzip("br, *;q=0"));
+        assertFalse(RespostaCondicional.aceitaGzip("identity"));
+    }
+
+    @Test
+    void semCabecalhoNaoUsaGzip() {
+        assertFalse(RespostaCondicional.aceitaGzip(null));
+        assertFalse(RespostaCondicional.aceitaGzip(""));
+    }
+
+    // ETag de /turmas/findAll?fields=...: os campos entram separados por vírgula
+    @Test
+    void etagComVirgulasBateComIfNoneMatch() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/turmas/findAll");
+        request.addHeader("If-None-Match", "\"3-id,nome,dias\"");
+        ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        assertEquals(HttpStatus.NOT_MODIFIED, RespostaCondicional.responder(webRequest, "3-id,nome,dias", () -> "corpo").getStatusCode());
+
+        request = new MockHttpServletRequest("GET", "/turmas/findAll");
+        request.addHeader("If-None-Match", "\"3-id,nome\"");
+        webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        assertEquals(HttpStatus.OK, RespostaCondicional.responder(webRequest, "3-id,nome,dias", () -> "corpo").getStatusCode());
+    }
+}
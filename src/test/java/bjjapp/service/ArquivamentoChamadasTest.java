@@ -0,0 +1,167 @@
+package bjjapp.service;
+
+import bjjapp.controller.CursorPage;
+import bjjapp.controller.ResumoPresencasTurma;
+import bjjapp.entity.Chamada;
+import bjjapp.entity.User;
+import bjjapp.repository.ChamadaRepository;
+import bjjapp.repository.PresencaChamada;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static bjjapp.service.ChamadasDeTeste.finalizada;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arquivamento com o arquivo morto num diretório temporário e idade zero, para que toda chamada
+ * finalizada seja elegível.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ArquivamentoChamadasTest {
+
+    private static final Long TURMA = 1L;
+    private static final Long ALUNO = 3L;
+    private static final Long OUTRO_ALUNO = 4L;
+
+    private static Path diretorio;
+
+    @DynamicPropertySource
+    static void arquivo(DynamicPropertyRegistry registry) throws IOException {
+        diretorio = Files.createTempDirectory("bjjapp-arquivo");
+        registry.add("bjjapp.arquivo.diretorio", diretorio::toString);
+        registry.add("bjjapp.arquivo.idade-dias", () -> "0");
+    }
+
+    @Autowired
+    private ChamadaService chamadaService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ArquivamentoChamadas arquivamento;
+
+    @Autowired
+    private ArquivoChamadas arquivo;
+
+    @Autowired
+    private AgregadosPresencaService agregados;
+
+    @Autowired
+    private ChamadaRepository chamadaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void arquivoPublicadoAntesDoCommitNaoDuplicaChamadas() throws IOException {
+        userService.updateTurmas(ALUNO, Set.of(TURMA));
+        List<Long> ids = List.of(
+            finalizada(chamadaService, TURMA, ALUNO, OUTRO_ALUNO),
+            finalizada(chamadaService, TURMA, OUTRO_ALUNO),
+            finalizada(chamadaService, TURMA, ALUNO));
+        long totalPresencas = chamadaService.countPresencas(ALUNO);
+        ResumoPresencasTurma resumo = resumoDaTurma();
+
+        // Arquivamento interrompido: o arquivo é publicado e a exclusão no banco é desfeita
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            arquivo.gravar(chamadaRepository.findAllById(ids).stream().map(ArquivamentoChamadasTest::arquivada).toList());
+            status.setRollbackOnly();
+        });
+        assertTrue(ids.stream().allMatch(arquivo::contem));
+        assertEquals(3, chamadaRepository.findAllById(ids).size());
+        assertEquals(1, segmentos());
+
+        // Enquanto as linhas estão nos dois lugares, cada chamada aparece uma vez
+        conferirListagens(ids, totalPresencas);
+
+        // A reconstrução dos agregados conta essas chamadas uma vez só
+        agregados.reconstruir();
+        conferirAgregados(totalPresencas, resumo);
+
+        // A próxima execução só exclui do banco, sem gravar outro arquivo
+        assertEquals(3, arquivamento.arquivar());
+        assertTrue(chamadaRepository.findAllById(ids).isEmpty());
+        assertEquals(1, segmentos());
+        conferirListagens(ids, totalPresencas);
+        agregados.reconstruir();
+        conferirAgregados(totalPresencas, resumo);
+
+        // Chamadas novas no banco são mescladas às arquivadas na paginação
+        Long nova = finalizada(chamadaService, TURMA, ALUNO);
+        List<Long> pagina = new ArrayList<>();
+        Long cursor = null;
+        do {
+            CursorPage<Chamada> atual = chamadaService.findByAlunoId(ALUNO, cursor, 1);
+            atual.items().forEach(chamada -> pagina.add(chamada.getId()));
+            cursor = atual.nextCursor();
+        } while (cursor != null);
+        assertEquals(List.of(nova, ids.get(2), ids.get(0)), pagina);
+        assertEquals(chamadaService.countPresencas(ALUNO), chamadaService.findByAlunoId(ALUNO).size());
+    }
+
+    private void conferirListagens(List<Long> ids, long totalPresencas) {
+        List<Long> doAluno = List.of(ids.get(0), ids.get(2));
+
+        List<Chamada> todas = chamadaService.findByAlunoId(ALUNO);
+        assertEquals(doAluno, todas.stream().map(Chamada::getId).sorted().toList());
+        assertEquals(totalPresencas, todas.size());
+
+        List<Chamada> pagina = chamadaService.findByAlunoId(ALUNO, null, 10).items();
+        assertEquals(List.of(ids.get(2), ids.get(0)), pagina.stream().map(Chamada::getId).toList());
+
+        LocalDate hoje = LocalDate.now();
+        List<Chamada> periodo = chamadaService.findByAlunoIdAndPeriodo(ALUNO, hoje.atStartOfDay(), hoje.plusDays(1).atStartOfDay());
+        assertEquals(doAluno, periodo.stream().map(Chamada::getId).sorted().toList());
+        assertTrue(periodo.stream().allMatch(chamada -> chamada.getAlunosPresentes().stream()
+            .anyMatch(aluno -> aluno.getId().equals(ALUNO))));
+
+        Map<String, Object> relatorio = chamadaService.getPresencasEausenciasPorPeriodo(ALUNO, hoje, hoje);
+        assertEquals(doAluno, idsDoRelatorio(relatorio.get("presencas")));
+        assertEquals(List.of(ids.get(1)), idsDoRelatorio(relatorio.get("ausencias")));
+        assertEquals(totalPresencas, relatorio.get("totalPresencas"));
+    }
+
+    private void conferirAgregados(long totalPresencas, ResumoPresencasTurma resumo) {
+        assertEquals(totalPresencas, chamadaService.countPresencas(ALUNO));
+        assertEquals(resumo, resumoDaTurma());
+    }
+
+    private ResumoPresencasTurma resumoDaTurma() {
+        return agregados.resumoTurma(TURMA, LocalDate.now(), LocalDate.now());
+    }
+
+    private static List<Long> idsDoRelatorio(Object linhas) {
+        return ((List<?>) linhas).stream().map(linha -> ((PresencaChamada) linha).id()).sorted().toList();
+    }
+
+    private static ArquivoChamadas.ChamadaArquivada arquivada(Chamada chamada) {
+        return new ArquivoChamadas.ChamadaArquivada(chamada.getId(), chamada.getTurma().getId(),
+            chamada.getProfessor().getId(), chamada.getDataHoraInicio(), chamada.getDataHoraFim(),
+            chamada.getAlunosPresentes().stream().mapToLong(User::getId).sorted().toArray());
+    }
+
+    private static long segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(arquivo -> arquivo.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package bjjapp.service;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chamadas montadas pelos serviços nos testes, com o professor 1 dos dados iniciais.
+ */
+public final class ChamadasDeTeste {
+
+    private static final Long PROFESSOR = 1L;
+
+    private ChamadasDeTeste() {
+    }
+
+    // Iniciada na turma com os presentes marcados, ainda aberta
+    public static Long aberta(ChamadaService chamadaService, Long turmaId, Long... presentes) {
+        Long id = chamadaService.iniciar(turmaId, PROFESSOR).getId();
+        chamadaService.marcarPresencas(id, Set.of(presentes));
+        return id;
+    }
+
+    public static Long finalizada(ChamadaService chamadaService, Long turmaId, Long... presentes) {
+        Long id = aberta(chamadaService, turmaId, presentes);
+        assertTrue(chamadaService.finalizar(id).getFinalizada());
+        return id;
+    }
+}
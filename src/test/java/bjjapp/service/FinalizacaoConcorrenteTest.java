@@ -0,0 +1,74 @@
+package bjjapp.service;
+
+import bjjapp.entity.User;
+import bjjapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static bjjapp.service.ChamadasDeTeste.aberta;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Chamadas com os mesmos alunos finalizadas ao mesmo tempo: cada finalização soma uma aula a cada
+ * presente, sem perder incrementos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FinalizacaoConcorrenteTest {
+
+    private static final Long TURMA = 3L;
+    private static final Long[] ALUNOS = {5L, 6L};
+    private static final int CHAMADAS = 16;
+
+    @Autowired
+    private ChamadaService chamadaService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void finalizacoesSimultaneasNaoPerdemIncrementos() throws Exception {
+        List<User> antes = userRepository.findAllById(List.of(ALUNOS));
+        long presencasAntes = chamadaService.countPresencas(5L);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < CHAMADAS; i++) {
+            ids.add(aberta(chamadaService, TURMA, ALUNOS));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> finalizacoes = new ArrayList<>();
+            for (Long id : ids) {
+                finalizacoes.add(executor.submit(() -> {
+                    largada.await();
+                    return chamadaService.finalizar(id);
+                }));
+            }
+            largada.countDown();
+            for (Future<?> finalizacao : finalizacoes) {
+                finalizacao.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (User depois : userRepository.findAllById(List.of(ALUNOS))) {
+            User anterior = antes.stream().filter(user -> user.getId().equals(depois.getId())).findFirst().orElseThrow();
+            assertEquals(anterior.getAulasAcumuladas() + CHAMADAS, depois.getAulasAcumuladas());
+            assertEquals(anterior.getAulasDesdeUltimaGraduacao() + CHAMADAS, depois.getAulasDesdeUltimaGraduacao());
+            assertEquals(anterior.getVersao() + CHAMADAS, depois.getVersao());
+        }
+        assertEquals(presencasAntes + CHAMADAS, chamadaService.countPresencas(5L));
+    }
+}
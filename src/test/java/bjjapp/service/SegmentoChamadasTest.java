@@ -0,0 +1,119 @@
+package bjjapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentoChamadasTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2022, 3, 1, 19, 0);
+
+    @TempDir
+    Path pasta;
+
+    @Test
+    void gravaELeDeVolta() throws IOException {
+        List<ArquivoChamadas.ChamadaArquivada> chamadas = List.of(
+            chamada(30L, BASE.plusDays(2), BASE.plusDays(2).plusMinutes(90), 2, 5, 6),
+            chamada(10L, BASE, BASE.plusMinutes(60).plusNanos(123_456_000), 2, 3),
+            chamada(20L, BASE.plusDays(1), null),
+            chamada(15L, BASE.plusDays(1), BASE.plusDays(1).plusHours(1), 1_000_000L));
+
+        SegmentoChamadas segmento = gravar(chamadas);
+
+        assertEquals(4, segmento.getLinhas());
+        assertArrayEquals(new long[]{10, 15, 20, 30}, segmento.ids());
+
+        List<ArquivoChamadas.ChamadaArquivada> lidas = segmento.percorrer(null, null).toList();
+        assertEquals(List.of(10L, 15L, 20L, 30L), lidas.stream().map(ArquivoChamadas.ChamadaArquivada::id).toList());
+        iguais(chamadas.get(1), lidas.get(0));
+        iguais(chamadas.get(3), lidas.get(1));
+        iguais(chamadas.get(2), lidas.get(2));
+        iguais(chamadas.get(0), lidas.get(3));
+        assertNull(lidas.get(2).dataHoraFim());
+        assertEquals(0, lidas.get(2).alunosIds().length);
+    }
+
+    @Test
+    void percorrerRespeitaOsLimitesInclusivos() throws IOException {
+        SegmentoChamadas segmento = gravar(List.of(
+            chamada(1L, BASE, null, 2),
+            chamada(2L, BASE.plusDays(1), null, 2),
+            chamada(3L, BASE.plusDays(1), null, 3),
+            chamada(4L, BASE.plusDays(2), null, 2),
+            chamada(5L, BASE.plusDays(3), null, 2)));
+
+        assertEquals(List.of(2L, 3L, 4L), ids(segmento, BASE.plusDays(1), BASE.plusDays(2)));
+        assertEquals(List.of(1L, 2L, 3L), ids(segmento, null, BASE.plusDays(1)));
+        assertEquals(List.of(4L, 5L), ids(segmento, BASE.plusDays(2), null));
+        assertEquals(List.of(2L, 3L), ids(segmento, BASE.plusDays(1).minusNanos(1_000), BASE.plusDays(1).plusNanos(1_000)));
+        assertEquals(List.of(), ids(segmento, BASE.plusDays(1).plusNanos(1_000), BASE.plusDays(2).minusNanos(1_000)));
+        assertEquals(List.of(), ids(segmento, BASE.plusDays(4), null));
+        assertEquals(List.of(), ids(segmento, null, BASE.minusNanos(1_000)));
+    }
+
+    @Test
+    void segmentoVazio() throws IOException {
+        SegmentoChamadas segmento = gravar(List.of());
+
+        assertEquals(0, segmento.getLinhas());
+        assertEquals(0, segmento.ids().length);
+        assertEquals(0, segmento.percorrer(null, null).count());
+    }
+
+    @Test
+    void naoSobrescreveArquivoExistente() throws IOException {
+        Path arquivo = pasta.resolve("chamadas-000001.seg");
+        SegmentoChamadas.gravar(arquivo, List.of(chamada(1L, BASE, null)));
+
+        assertThrows(IOException.class, () -> SegmentoChamadas.gravar(arquivo, List.of(chamada(2L, BASE, null))));
+    }
+
+    @Test
+    void recusaArquivoInvalidoOuIncompleto() throws IOException {
+        Path lixo = Files.write(pasta.resolve("lixo.seg"), new byte[64]);
+        assertThrows(IllegalStateException.class, () -> SegmentoChamadas.abrir(lixo));
+
+        Path arquivo = pasta.resolve("chamadas-000001.seg");
+        SegmentoChamadas.gravar(arquivo, List.of(chamada(1L, BASE, BASE.plusHours(1), 2, 3)));
+        byte[] bytes = Files.readAllBytes(arquivo);
+        Path cortado = Files.write(pasta.resolve("cortado.seg"), Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalStateException.class, () -> SegmentoChamadas.abrir(cortado));
+    }
+
+    private SegmentoChamadas gravar(List<ArquivoChamadas.ChamadaArquivada> chamadas) throws IOException {
+        Path arquivo = pasta.resolve("chamadas-000001.seg");
+        SegmentoChamadas.gravar(arquivo, chamadas);
+        return SegmentoChamadas.abrir(arquivo);
+    }
+
+    private static List<Long> ids(SegmentoChamadas segmento, LocalDateTime inicio, LocalDateTime fim) {
+        return segmento.percorrer(inicio, fim).map(ArquivoChamadas.ChamadaArquivada::id).toList();
+    }
+
+    private static ArquivoChamadas.ChamadaArquivada chamada(Long id, LocalDateTime inicio, LocalDateTime fim, long... alunosIds) {
+        return new ArquivoChamadas.ChamadaArquivada(id, 7L, 1L, inicio, fim, alunosIds);
+    }
+
+    private static void iguais(ArquivoChamadas.ChamadaArquivada esperada, ArquivoChamadas.ChamadaArquivada lida) {
+        assertEquals(esperada.id(), lida.id());
+        assertEquals(esperada.turmaId(), lida.turmaId());
+        assertEquals(esperada.professorId(), lida.professorId());
+        assertEquals(esperada.dataHoraInicio(), lida.dataHoraInicio());
+        assertEquals(esperada.dataHoraFim(), lida.dataHoraFim());
+        assertArrayEquals(esperada.alunosIds(), lida.alunosIds());
+        assertTrue(esperada.alunosIds().length == 0 || lida.isPresente(esperada.alunosIds()[0]));
+    }
+}